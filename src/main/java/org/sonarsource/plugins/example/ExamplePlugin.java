@@ -35,8 +35,11 @@ import org.sonarsource.plugins.example.rules.FooLintIssuesLoaderSensor;
 import org.sonarsource.plugins.example.rules.FooLintRulesDefinition;
 import org.sonarsource.plugins.example.rules.JavaRulesDefinition;
 import org.sonarsource.plugins.example.settings.FooLanguageProperties;
+import org.sonarsource.plugins.example.settings.FooLintProperties;
 import org.sonarsource.plugins.example.settings.HelloWorldProperties;
+import org.sonarsource.plugins.example.settings.RatingProperties;
 import org.sonarsource.plugins.example.settings.SayHelloFromScanner;
+import org.sonarsource.plugins.example.web.ExampleWs;
 import org.sonarsource.plugins.example.web.MyPluginPageDefinition;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -69,11 +72,13 @@ public class ExamplePlugin implements Plugin {
     // tutorial on measures
     context
       .addExtensions(ExampleMetrics.class, SetSizeOnFilesSensor.class, ComputeSizeAverage.class, ComputeSizeRating.class);
+    context.addExtensions(RatingProperties.getProperties());
 
     LOGGER.info("JCV ExamplePlugin.define() 4");
     // tutorial on rules
     context.addExtensions(JavaRulesDefinition.class, CreateIssuesOnJavaFilesSensor.class);
     context.addExtensions(FooLintRulesDefinition.class, FooLintIssuesLoaderSensor.class);
+    context.addExtensions(FooLintProperties.getProperties());
 
     LOGGER.info("JCV ExamplePlugin.define() 5");
     // tutorial on settings
@@ -84,7 +89,7 @@ public class ExamplePlugin implements Plugin {
     LOGGER.info("JCV ExamplePlugin.define() 6");
 
     // tutorial on web extensions
-    context.addExtension(MyPluginPageDefinition.class);
+    context.addExtensions(MyPluginPageDefinition.class, ExampleWs.class);
 
     LOGGER.info("JCV ExamplePlugin.define() 7");
 
@@ -97,7 +102,8 @@ public class ExamplePlugin implements Plugin {
         .build(),
         PropertyDefinition.builder("sonar.foo.url.whitelist")
         .name("URL Whitelist")
-        .description("URL regex patterns not marked as errors. One per line")
+        .description("URLs not marked as errors, one per line: hostnames (subdomains included), URL prefixes "
+          + "or regular expressions matching a part of the URL")
         .category("FooLint")
         .defaultValue("")
         .type(PropertyType.TEXT)
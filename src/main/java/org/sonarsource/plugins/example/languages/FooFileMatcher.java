@@ -0,0 +1,202 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.languages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the Foo files, compiled once from the values of the "sonar.foo.file.suffixes" property.
+ * Plain suffixes are normalized with a leading dot and matched case-insensitively on the file name,
+ * walking a trie of the reversed suffixes from the end of the name, so that the cost does not
+ * depend on the number of suffixes. Values with a wildcard ("*" or "?") or a "/" are glob patterns:
+ * "**" matches any number of directories, "*" and "?" any characters of a single name. Patterns
+ * without "/" are matched on the file name, the others on the path relative to the base directory.
+ */
+public final class FooFileMatcher {
+
+  private final String[] values;
+  private final String[] suffixes;
+  private final Node reversedSuffixes = new Node();
+  private final List<Pattern> namePatterns = new ArrayList<>();
+  private final List<Pattern> pathPatterns = new ArrayList<>();
+
+  private FooFileMatcher(String[] values) {
+    this.values = values.clone();
+    Set<String> normalizedSuffixes = new LinkedHashSet<>();
+    for (String value : values) {
+      String trimmed = value.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      if (isGlob(trimmed)) {
+        (trimmed.indexOf('/') >= 0 ? pathPatterns : namePatterns).add(toRegex(trimmed));
+      } else {
+        normalizedSuffixes.add(normalizeSuffix(trimmed));
+      }
+    }
+    this.suffixes = normalizedSuffixes.toArray(new String[0]);
+    for (String suffix : suffixes) {
+      reversedSuffixes.add(suffix);
+    }
+  }
+
+  public static FooFileMatcher compile(String[] values) {
+    return new FooFileMatcher(values);
+  }
+
+  /**
+   * Whether the matcher is compiled from these values of the property, so that it can be reused.
+   */
+  public boolean isCompiledFrom(String[] otherValues) {
+    return Arrays.equals(values, otherValues);
+  }
+
+  /**
+   * The normalized plain suffixes, for the language detection of SonarQube.
+   */
+  public String[] suffixes() {
+    return suffixes.clone();
+  }
+
+  /**
+   * Whether some files are selected by glob patterns, which SonarQube does not know of.
+   */
+  public boolean hasPatterns() {
+    return !namePatterns.isEmpty() || !pathPatterns.isEmpty();
+  }
+
+  /**
+   * @param relativePath path relative to the base directory, with "/" separators
+   */
+  public boolean matches(String relativePath) {
+    int nameStart = relativePath.lastIndexOf('/') + 1;
+    if (reversedSuffixes.matchesEnd(relativePath, nameStart)) {
+      return true;
+    }
+    String name = relativePath.substring(nameStart);
+    for (Pattern pattern : namePatterns) {
+      if (pattern.matcher(name).matches()) {
+        return true;
+      }
+    }
+    for (Pattern pattern : pathPatterns) {
+      if (pattern.matcher(relativePath).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static String normalizeSuffix(String suffix) {
+    String lowerCase = suffix.toLowerCase(Locale.ENGLISH);
+    return lowerCase.startsWith(".") ? lowerCase : ("." + lowerCase);
+  }
+
+  private static boolean isGlob(String value) {
+    return value.indexOf('*') >= 0 || value.indexOf('?') >= 0 || value.indexOf('/') >= 0;
+  }
+
+  private static Pattern toRegex(String glob) {
+    StringBuilder regex = new StringBuilder();
+    int i = 0;
+    while (i < glob.length()) {
+      char c = glob.charAt(i);
+      if (glob.startsWith("**/", i)) {
+        regex.append("(?:.*/)?");
+        i += 3;
+      } else if (glob.startsWith("**", i)) {
+        regex.append(".*");
+        i += 2;
+      } else {
+        if (c == '*') {
+          regex.append("[^/]*");
+        } else if (c == '?') {
+          regex.append("[^/]");
+        } else {
+          regex.append(Pattern.quote(String.valueOf(c)));
+        }
+        i++;
+      }
+    }
+    return Pattern.compile(regex.toString());
+  }
+
+  /**
+   * Node of the trie of the reversed suffixes. Children are searched linearly, as there are only
+   * a few distinct characters at each position of the suffixes.
+   */
+  private static final class Node {
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private boolean terminal;
+
+    void add(String suffix) {
+      Node node = this;
+      for (int i = suffix.length() - 1; i >= 0; i--) {
+        node = node.childOrCreate(suffix.charAt(i));
+      }
+      node.terminal = true;
+    }
+
+    private Node childOrCreate(char key) {
+      Node child = child(key);
+      if (child == null) {
+        child = new Node();
+        keys = Arrays.copyOf(keys, keys.length + 1);
+        children = Arrays.copyOf(children, children.length + 1);
+        keys[keys.length - 1] = key;
+        children[children.length - 1] = child;
+      }
+      return child;
+    }
+
+    private Node child(char key) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == key) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Whether the text, from {@code start}, ends with one of the suffixes, ignoring case.
+     */
+    boolean matchesEnd(String text, int start) {
+      Node node = this;
+      for (int i = text.length() - 1; i >= start; i--) {
+        node = node.child(Character.toLowerCase(text.charAt(i)));
+        if (node == null) {
+          return false;
+        }
+        if (node.terminal) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
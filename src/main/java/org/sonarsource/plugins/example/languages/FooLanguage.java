@@ -22,8 +22,6 @@ package org.sonarsource.plugins.example.languages;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.resources.AbstractLanguage;
 import org.sonarsource.plugins.example.settings.FooLanguageProperties;
-import org.sonar.api.utils.log.Logger;
-import org.sonar.api.utils.log.Loggers;
 
 /**
  * This class defines the fictive Foo language.
@@ -33,9 +31,9 @@ public final class FooLanguage extends AbstractLanguage {
   public static final String NAME = "Foo";
   public static final String KEY = "foo";
 
-  private static final Logger LOGGER = Loggers.get(FooLanguage.class);
-
   private final Configuration config;
+  // compiled again only when the suffixes change, as the language is a server singleton whose settings can change
+  private volatile FooFileMatcher fileMatcher;
 
   public FooLanguage(Configuration config) {
     super(KEY, NAME);
@@ -44,8 +42,18 @@ public final class FooLanguage extends AbstractLanguage {
 
   @Override
   public String[] getFileSuffixes() {
-    LOGGER.info("JCV FooLanguage.getFileSuffixes() 1");
-    return config.getStringArray(FooLanguageProperties.FILE_SUFFIXES_KEY);
+    return fileMatcher().suffixes();
+  }
+
+  public FooFileMatcher fileMatcher() {
+    String[] values = config.getStringArray(FooLanguageProperties.FILE_SUFFIXES_KEY);
+    FooFileMatcher matcher = fileMatcher;
+    if (matcher == null || !matcher.isCompiledFrom(values)) {
+      // compiling twice in concurrent calls is harmless
+      matcher = FooFileMatcher.compile(values);
+      fileMatcher = matcher;
+    }
+    return matcher;
   }
 
 }
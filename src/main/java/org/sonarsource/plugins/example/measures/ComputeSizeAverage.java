@@ -24,29 +24,55 @@ import org.sonar.api.ce.measure.Measure;
 import org.sonar.api.ce.measure.MeasureComputer;
 
 import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_COUNT;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_HISTOGRAM;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_MAX;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_MIN;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_P90;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_SUM;
 
+/**
+ * Aggregates the filename sizes of files to directories and project. Each level only reads the
+ * sum, count and histogram of its children, so that the average is the exact average of all the
+ * files, and not an average of the averages of sub-directories.
+ */
 public class ComputeSizeAverage implements MeasureComputer {
 
   @Override
   public MeasureComputerDefinition define(MeasureComputerDefinitionContext def) {
     return def.newDefinitionBuilder()
-      .setOutputMetrics(FILENAME_SIZE.key())
+      .setOutputMetrics(FILENAME_SIZE.key(), FILENAME_SIZE_SUM.key(), FILENAME_SIZE_COUNT.key(), FILENAME_SIZE_HISTOGRAM.key(),
+        FILENAME_SIZE_MIN.key(), FILENAME_SIZE_MAX.key(), FILENAME_SIZE_P90.key())
       .build();
   }
 
   @Override
   public void compute(MeasureComputerContext context) {
-    // measure is already defined on files by {@link SetSizeOnFilesSensor}
+    // measures are already defined on files by {@link SetSizeOnFilesSensor}
     // in scanner stack
     if (context.getComponent().getType() != Component.Type.FILE) {
       int sum = 0;
-      int count = 0;
-      for (Measure child : context.getChildrenMeasures(FILENAME_SIZE.key())) {
+      for (Measure child : context.getChildrenMeasures(FILENAME_SIZE_SUM.key())) {
         sum += child.getIntValue();
-        count++;
+      }
+      int count = 0;
+      for (Measure child : context.getChildrenMeasures(FILENAME_SIZE_COUNT.key())) {
+        count += child.getIntValue();
+      }
+      SizeHistogram histogram = new SizeHistogram();
+      for (Measure child : context.getChildrenMeasures(FILENAME_SIZE_HISTOGRAM.key())) {
+        histogram.merge(child.getStringValue());
       }
       int average = count == 0 ? 0 : sum / count;
       context.addMeasure(FILENAME_SIZE.key(), average);
+      context.addMeasure(FILENAME_SIZE_SUM.key(), sum);
+      context.addMeasure(FILENAME_SIZE_COUNT.key(), count);
+      if (!histogram.isEmpty()) {
+        context.addMeasure(FILENAME_SIZE_HISTOGRAM.key(), histogram.toString());
+        context.addMeasure(FILENAME_SIZE_MIN.key(), histogram.min());
+        context.addMeasure(FILENAME_SIZE_MAX.key(), histogram.max());
+        context.addMeasure(FILENAME_SIZE_P90.key(), histogram.percentile(90));
+      }
     }
   }
 }
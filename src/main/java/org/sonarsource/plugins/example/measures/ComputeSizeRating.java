@@ -19,39 +19,89 @@
  */
 package org.sonarsource.plugins.example.measures;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import org.sonar.api.ce.measure.Measure;
 import org.sonar.api.ce.measure.MeasureComputer;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.plugins.example.settings.RatingProperties;
 
+import static java.util.Arrays.asList;
 import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE;
 import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_RATING;
 
 /**
- * Rating is computed from value of metric {@link ExampleMetrics#FILENAME_SIZE}.
+ * Computes ratings from the values of int metrics, all in the same pass over the components.
+ * Thresholds are read from server properties, and only compiled again when they change. Invalid
+ * thresholds are logged once, and replaced by the default ones.
+ * Rating of {@link ExampleMetrics#FILENAME_SIZE} is {@link ExampleMetrics#FILENAME_SIZE_RATING}.
  */
 public class ComputeSizeRating implements MeasureComputer {
 
-  private static final int THRESHOLD = 20;
-  private static final int RATING_A = 1;
-  private static final int RATING_B = 2;
+  private static final Logger LOGGER = Loggers.get(ComputeSizeRating.class);
+
+  private static final List<Rating> RATINGS = asList(
+    new Rating(FILENAME_SIZE, FILENAME_SIZE_RATING, RatingProperties.FILENAME_SIZE_THRESHOLDS_KEY,
+      RatingProperties.FILENAME_SIZE_THRESHOLDS_DEFAULT_VALUE));
 
   @Override
   public MeasureComputerDefinition define(MeasureComputerDefinitionContext def) {
     return def.newDefinitionBuilder()
-      .setInputMetrics(FILENAME_SIZE.key())
-      .setOutputMetrics(FILENAME_SIZE_RATING.key())
+      .setInputMetrics(RATINGS.stream().map(r -> r.input.key()).toArray(String[]::new))
+      .setOutputMetrics(RATINGS.stream().map(r -> r.output.key()).toArray(String[]::new))
       .build();
   }
 
   @Override
   public void compute(MeasureComputerContext context) {
-    Measure size = context.getMeasure(FILENAME_SIZE.key());
-    if (size != null) {
-      // rating values are currently implemented as integers in API
-      int rating = RATING_A;
-      if (size.getIntValue() > THRESHOLD) {
-        rating = RATING_B;
+    for (Rating rating : RATINGS) {
+      Measure value = context.getMeasure(rating.input.key());
+      if (value != null) {
+        RatingGrid grid = rating.grid(context.getSettings().getString(rating.propertyKey));
+        context.addMeasure(rating.output.key(), grid.rating(value.getIntValue()));
+      }
+    }
+  }
+
+  private static class Rating {
+    private final Metric<Integer> input;
+    private final Metric<Integer> output;
+    private final String propertyKey;
+    private final String defaultThresholds;
+    // compiled once, as long as the property does not change
+    private final AtomicReference<RatingGrid> grid = new AtomicReference<>();
+
+    private Rating(Metric<Integer> input, Metric<Integer> output, String propertyKey, String defaultThresholds) {
+      this.input = input;
+      this.output = output;
+      this.propertyKey = propertyKey;
+      this.defaultThresholds = defaultThresholds;
+    }
+
+    private RatingGrid grid(String thresholds) {
+      String definition = thresholds == null || thresholds.trim().isEmpty() ? defaultThresholds : thresholds;
+      RatingGrid compiled = grid.get();
+      if (compiled == null || !compiled.definition().equals(definition)) {
+        compiled = compile(definition);
+        grid.set(compiled);
+      }
+      return compiled;
+    }
+
+    /**
+     * The grid of invalid thresholds is the default one, kept with their definition so that they are not
+     * compiled and logged again for each component.
+     */
+    private RatingGrid compile(String definition) {
+      try {
+        return RatingGrid.parse(definition);
+      } catch (IllegalArgumentException e) {
+        LOGGER.warn("{} of property '{}', default thresholds '{}' are used instead", e.getMessage(), propertyKey,
+          defaultThresholds);
+        return RatingGrid.parse(defaultThresholds).withDefinition(definition);
       }
-      context.addMeasure(FILENAME_SIZE_RATING.key(), rating);
     }
   }
 }
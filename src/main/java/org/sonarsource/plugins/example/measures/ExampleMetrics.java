@@ -35,6 +35,55 @@ public class ExampleMetrics implements Metrics {
     .setDomain(CoreMetrics.DOMAIN_GENERAL)
     .create();
 
+  // sum and count of the filename sizes of the files of a component, so that the average is computed exactly
+  public static final Metric<Integer> FILENAME_SIZE_SUM = new Metric.Builder("filename_size_sum", "Filename Size Sum", Metric.ValueType.INT)
+    .setDescription("Sum of the number of characters of file names")
+    .setDirection(Metric.DIRECTION_NONE)
+    .setQualitative(false)
+    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+    .setHidden(true)
+    .create();
+
+  public static final Metric<Integer> FILENAME_SIZE_COUNT = new Metric.Builder("filename_size_count", "Filename Size Count", Metric.ValueType.INT)
+    .setDescription("Number of files measured by the filename size")
+    .setDirection(Metric.DIRECTION_NONE)
+    .setQualitative(false)
+    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+    .setHidden(true)
+    .create();
+
+  public static final Metric<String> FILENAME_SIZE_HISTOGRAM = new Metric.Builder("filename_size_histogram", "Filename Size Histogram",
+    Metric.ValueType.DATA)
+    .setDescription("Number of files per number of characters of file names")
+    .setDirection(Metric.DIRECTION_NONE)
+    .setQualitative(false)
+    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+    .setHidden(true)
+    .setDeleteHistoricalData(true)
+    .create();
+
+  public static final Metric<Integer> FILENAME_SIZE_MIN = new Metric.Builder("filename_size_min", "Filename Size Min", Metric.ValueType.INT)
+    .setDescription("Smallest number of characters of file names")
+    .setDirection(Metric.DIRECTION_WORST)
+    .setQualitative(false)
+    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+    .create();
+
+  public static final Metric<Integer> FILENAME_SIZE_MAX = new Metric.Builder("filename_size_max", "Filename Size Max", Metric.ValueType.INT)
+    .setDescription("Largest number of characters of file names")
+    .setDirection(Metric.DIRECTION_WORST)
+    .setQualitative(false)
+    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+    .create();
+
+  public static final Metric<Integer> FILENAME_SIZE_P90 = new Metric.Builder("filename_size_p90", "Filename Size 90th Percentile",
+    Metric.ValueType.INT)
+    .setDescription("Number of characters that 90% of the file names do not exceed")
+    .setDirection(Metric.DIRECTION_WORST)
+    .setQualitative(false)
+    .setDomain(CoreMetrics.DOMAIN_GENERAL)
+    .create();
+
   public static final Metric<Integer> FILENAME_SIZE_RATING = new Metric.Builder("filename_size_rating", "Filename Size Rating", Metric.ValueType.RATING)
     .setDescription("Rating based on size of file names")
     .setDirection(Metric.DIRECTION_BETTER)
@@ -42,8 +91,63 @@ public class ExampleMetrics implements Metrics {
     .setDomain(CoreMetrics.DOMAIN_GENERAL)
     .create();
 
+  // cost of the sensors, saved on projects by {@link SensorTelemetry}
+  public static final String DOMAIN_SCANNER = "Scanner";
+
+  public static final Metric<Long> FOOLINT_SENSOR_TIME = newSensorTimeMetric("foolint_sensor_time", "FooLint Sensor Time");
+
+  public static final Metric<Integer> FOOLINT_FILES_SCANNED = newSensorCountMetric("foolint_files_scanned", "FooLint Files Scanned",
+    "Number of files read by the FooLint sensor");
+
+  public static final Metric<Integer> FOOLINT_KILOBYTES_READ = newSensorCountMetric("foolint_kilobytes_read", "FooLint Data Read (kB)",
+    "Kilobytes of file content read by the FooLint sensor");
+
+  public static final Metric<Integer> FOOLINT_LINES_SCANNED = newSensorCountMetric("foolint_lines_scanned", "FooLint Lines Scanned",
+    "Number of lines scanned by the FooLint sensor");
+
+  public static final Metric<Integer> FOOLINT_ISSUES_RAISED = newSensorCountMetric("foolint_issues_raised", "FooLint Issues Raised",
+    "Number of issues raised by the FooLint sensor");
+
+  public static final Metric<Integer> FOOLINT_CACHE_HITS = newSensorCountMetric("foolint_cache_hits", "FooLint Cache Hits",
+    "Number of unchanged files for which the FooLint sensor replayed cached findings");
+
+  public static final Metric<Long> FILENAME_SIZE_SENSOR_TIME = newSensorTimeMetric("filename_size_sensor_time", "Filename Size Sensor Time");
+
+  public static final Metric<Integer> FILENAME_SIZE_SENSOR_FILES = newSensorCountMetric("filename_size_sensor_files", "Filename Size Sensor Files",
+    "Number of files measured by the filename size sensor");
+
+  public static final Metric<Long> JAVA_LINE1_SENSOR_TIME = newSensorTimeMetric("java_line1_sensor_time", "Java Line 1 Sensor Time");
+
+  public static final Metric<Integer> JAVA_LINE1_SENSOR_FILES = newSensorCountMetric("java_line1_sensor_files", "Java Line 1 Sensor Files",
+    "Number of Java files processed by the line 1 issues sensor");
+
+  public static final Metric<Integer> JAVA_LINE1_SENSOR_ISSUES = newSensorCountMetric("java_line1_sensor_issues", "Java Line 1 Sensor Issues",
+    "Number of issues raised by the line 1 issues sensor");
+
+  private static Metric<Long> newSensorTimeMetric(String key, String name) {
+    return new Metric.Builder(key, name, Metric.ValueType.MILLISEC)
+      .setDescription("Wall time of the sensor execution")
+      .setDirection(Metric.DIRECTION_WORST)
+      .setQualitative(false)
+      .setDomain(DOMAIN_SCANNER)
+      .create();
+  }
+
+  private static Metric<Integer> newSensorCountMetric(String key, String name, String description) {
+    return new Metric.Builder(key, name, Metric.ValueType.INT)
+      .setDescription(description)
+      .setDirection(Metric.DIRECTION_NONE)
+      .setQualitative(false)
+      .setDomain(DOMAIN_SCANNER)
+      .create();
+  }
+
   @Override
   public List<Metric> getMetrics() {
-    return asList(FILENAME_SIZE, FILENAME_SIZE_RATING);
+    return asList(FILENAME_SIZE, FILENAME_SIZE_SUM, FILENAME_SIZE_COUNT, FILENAME_SIZE_HISTOGRAM,
+      FILENAME_SIZE_MIN, FILENAME_SIZE_MAX, FILENAME_SIZE_P90, FILENAME_SIZE_RATING,
+      FOOLINT_SENSOR_TIME, FOOLINT_FILES_SCANNED, FOOLINT_KILOBYTES_READ, FOOLINT_LINES_SCANNED, FOOLINT_ISSUES_RAISED, FOOLINT_CACHE_HITS,
+      FILENAME_SIZE_SENSOR_TIME, FILENAME_SIZE_SENSOR_FILES,
+      JAVA_LINE1_SENSOR_TIME, JAVA_LINE1_SENSOR_FILES, JAVA_LINE1_SENSOR_ISSUES);
   }
 }
@@ -0,0 +1,78 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.measures;
+
+import java.util.Arrays;
+
+/**
+ * Ratings A to E of a value, compiled from increasing thresholds like "20,30,40,50":
+ * a value up to the first threshold is rated A, up to the second one B, and so on.
+ * Values larger than the last threshold get the worst rating.
+ */
+class RatingGrid {
+
+  // rating values are currently implemented as integers in API
+  static final int RATING_A = 1;
+  static final int RATING_E = 5;
+
+  private final String definition;
+  private final int[] thresholds;
+
+  private RatingGrid(String definition, int[] thresholds) {
+    this.definition = definition;
+    this.thresholds = thresholds;
+  }
+
+  static RatingGrid parse(String definition) {
+    String[] values = definition.split(",");
+    if (values.length > RATING_E - RATING_A) {
+      throw new IllegalArgumentException("At most " + (RATING_E - RATING_A) + " rating thresholds are expected: " + definition);
+    }
+    int[] thresholds = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      try {
+        thresholds[i] = Integer.parseInt(values[i].trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid rating threshold '" + values[i] + "' in: " + definition, e);
+      }
+      if (i > 0 && thresholds[i] <= thresholds[i - 1]) {
+        throw new IllegalArgumentException("Rating thresholds must be increasing: " + definition);
+      }
+    }
+    return new RatingGrid(definition, thresholds);
+  }
+
+  String definition() {
+    return definition;
+  }
+
+  /**
+   * Same thresholds, compiled from another definition.
+   */
+  RatingGrid withDefinition(String otherDefinition) {
+    return new RatingGrid(otherDefinition, thresholds);
+  }
+
+  int rating(int value) {
+    int index = Arrays.binarySearch(thresholds, value);
+    // a value equal to a threshold gets its rating, else the one of the next threshold
+    return RATING_A + (index >= 0 ? index : (-index - 1));
+  }
+}
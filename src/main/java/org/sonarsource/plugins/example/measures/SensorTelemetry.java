@@ -0,0 +1,58 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.measures;
+
+import java.util.concurrent.TimeUnit;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.measures.Metric;
+
+/**
+ * Saves the cost of a sensor execution (time, volume of data processed) as measures
+ * on the project, so that it can be followed in the project activity and regressions
+ * are noticed when the plugin is upgraded. Created at the beginning of
+ * {@link org.sonar.api.scanner.sensor.ProjectSensor#execute(SensorContext)}: the sensor must be a
+ * ProjectSensor, as a module sensor would save the same project measure once per module.
+ */
+public class SensorTelemetry {
+
+  private final SensorContext context;
+  private final long startNanos;
+
+  public SensorTelemetry(SensorContext context) {
+    this.context = context;
+    this.startNanos = System.nanoTime();
+  }
+
+  public void saveElapsedTime(Metric<Long> metric) {
+    context.<Long>newMeasure()
+      .forMetric(metric)
+      .on(context.project())
+      .withValue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+      .save();
+  }
+
+  public void save(Metric<Integer> metric, long value) {
+    context.<Integer>newMeasure()
+      .forMetric(metric)
+      .on(context.project())
+      .withValue((int) Math.min(value, Integer.MAX_VALUE))
+      .save();
+  }
+}
@@ -21,17 +21,22 @@ package org.sonarsource.plugins.example.measures;
 
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.scanner.sensor.ProjectSensor;
 
 import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_COUNT;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_HISTOGRAM;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_SENSOR_FILES;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_SENSOR_TIME;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_SUM;
 
 /**
  * Scanner feeds raw measures on files but must not aggregate values to directories and project.
  * This class emulates loading of file measures from a 3rd-party analyser.
  */
-public class SetSizeOnFilesSensor implements Sensor {
+public class SetSizeOnFilesSensor implements ProjectSensor {
   @Override
   public void describe(SensorDescriptor descriptor) {
     descriptor.name("Compute size of file names");
@@ -39,15 +44,37 @@ public class SetSizeOnFilesSensor implements Sensor {
 
   @Override
   public void execute(SensorContext context) {
+    SensorTelemetry telemetry = new SensorTelemetry(context);
     FileSystem fs = context.fileSystem();
     // only "main" files, but not "tests"
     Iterable<InputFile> files = fs.inputFiles(fs.predicates().hasType(InputFile.Type.MAIN));
+    int count = 0;
     for (InputFile file : files) {
+      int size = file.filename().length();
       context.<Integer>newMeasure()
         .forMetric(FILENAME_SIZE)
         .on(file)
-        .withValue(file.filename().length())
+        .withValue(size)
         .save();
+      // aggregated by ComputeSizeAverage
+      context.<Integer>newMeasure()
+        .forMetric(FILENAME_SIZE_SUM)
+        .on(file)
+        .withValue(size)
+        .save();
+      context.<Integer>newMeasure()
+        .forMetric(FILENAME_SIZE_COUNT)
+        .on(file)
+        .withValue(1)
+        .save();
+      context.<String>newMeasure()
+        .forMetric(FILENAME_SIZE_HISTOGRAM)
+        .on(file)
+        .withValue(SizeHistogram.of(size))
+        .save();
+      count++;
     }
+    telemetry.save(FILENAME_SIZE_SENSOR_FILES, count);
+    telemetry.saveElapsedTime(FILENAME_SIZE_SENSOR_TIME);
   }
 }
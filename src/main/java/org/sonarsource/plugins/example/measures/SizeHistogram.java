@@ -0,0 +1,90 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.measures;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Number of files per filename size, stored in measures as "size=count;size=count" ordered by size.
+ * Filename sizes have few distinct values, so the histogram is exact and merging the histograms of
+ * the children of a component costs the number of distinct sizes, whatever the number of files.
+ */
+class SizeHistogram {
+
+  private final TreeMap<Integer, Long> counts = new TreeMap<>();
+
+  static String of(int size) {
+    return size + "=1";
+  }
+
+  void merge(String data) {
+    if (data == null || data.isEmpty()) {
+      return;
+    }
+    for (String entry : data.split(";")) {
+      int separator = entry.indexOf('=');
+      counts.merge(Integer.parseInt(entry.substring(0, separator)), Long.parseLong(entry.substring(separator + 1)), Long::sum);
+    }
+  }
+
+  boolean isEmpty() {
+    return counts.isEmpty();
+  }
+
+  int min() {
+    return counts.firstKey();
+  }
+
+  int max() {
+    return counts.lastKey();
+  }
+
+  /**
+   * Smallest size such that at least the given percentage of the files are not larger (nearest-rank method).
+   */
+  int percentile(int percent) {
+    long total = 0;
+    for (long count : counts.values()) {
+      total += count;
+    }
+    long rank = Math.max(1, (total * percent + 99) / 100);
+    long cumulated = 0;
+    for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+      cumulated += entry.getValue();
+      if (cumulated >= rank) {
+        return entry.getKey();
+      }
+    }
+    return counts.lastKey();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder data = new StringBuilder();
+    for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+      if (data.length() > 0) {
+        data.append(';');
+      }
+      data.append(entry.getKey()).append('=').append(entry.getValue());
+    }
+    return data.toString();
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Loads files concurrently, so that the latency of a network filesystem is paid for many
+ * files at once instead of one file after the other. Reads are done by virtual threads when
+ * running on Java 21 or later, else by a fixed pool of threads. The size of the files loaded
+ * and not yet released is bounded by a budget of bytes, so that reading ahead of the scanning
+ * does not exhaust the memory. Large files are only read in chunks when scanned.
+ */
+final class AsyncFileReader implements AutoCloseable {
+
+  private static final Logger LOGGER = Loggers.get(AsyncFileReader.class);
+
+  static final class Loaded {
+    final CandidateLineReader.Content content;
+    private final int permits;
+
+    private Loaded(CandidateLineReader.Content content, int permits) {
+      this.content = content;
+      this.permits = permits;
+    }
+  }
+
+  /**
+   * Reads the content of a file, which is {@link CandidateLineReader#load} except in tests.
+   */
+  interface Loader {
+    CandidateLineReader.Content load(Path path, long maxBytes, ByteBufferPool pool) throws IOException;
+  }
+
+  private final Loader loader;
+  private final ExecutorService executor;
+  private final Semaphore budget;
+  private final int budgetKilobytes;
+  private final ByteBufferPool bufferPool;
+
+  AsyncFileReader(int threads, int budgetKilobytes) {
+    this(threads, budgetKilobytes, CandidateLineReader::load);
+  }
+
+  AsyncFileReader(int threads, int budgetKilobytes, Loader loader) {
+    this.loader = loader;
+    ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+    if (virtualThreads != null) {
+      LOGGER.debug("FooLint files are read by virtual threads");
+      this.executor = virtualThreads;
+    } else {
+      LOGGER.debug("FooLint files are read by {} threads", threads);
+      this.executor = Executors.newFixedThreadPool(threads, new FooLintThreadFactory("foolint-reader-"));
+    }
+    this.budgetKilobytes = Math.max(1, budgetKilobytes);
+    this.budget = new Semaphore(this.budgetKilobytes);
+    // direct buffers for the files loaded within the budget, the files of size classes rounded up taking heap buffers
+    this.bufferPool = new ByteBufferPool(this.budgetKilobytes * 1024L);
+  }
+
+  /**
+   * Returns null before Java 21. Called by reflection as the plugin is compiled for Java 8.
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Loads the file once enough of the budget is available. It must be given back with
+   * {@link #release} once scanned. The future fails with the {@link IOException} if the
+   * file can't be read.
+   */
+  CompletableFuture<Loaded> load(Path path, long maxBytes) {
+    CompletableFuture<Loaded> future = new CompletableFuture<>();
+    executor.execute(() -> {
+      try {
+        future.complete(acquireAndLoad(path, maxBytes));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.completeExceptionally(e);
+      } catch (IOException | RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  private Loaded acquireAndLoad(Path path, long maxBytes) throws IOException, InterruptedException {
+    long size = path.toFile().length();
+    // a file larger than the whole budget is loaded alone, a file too large to be scanned is not loaded,
+    // a file read in chunks takes the budget of one chunk while scanned
+    long loadedSize = Math.min(size, CandidateLineReader.CHUNK_THRESHOLD);
+    int permits = maxBytes > 0 && size > maxBytes ? 0 : (int) Math.min(budgetKilobytes, (loadedSize + 1023) / 1024);
+    budget.acquire(permits);
+    try {
+      return new Loaded(loader.load(path, maxBytes, bufferPool), permits);
+    } catch (IOException | RuntimeException e) {
+      budget.release(permits);
+      throw e;
+    }
+  }
+
+  void release(Loaded loaded) {
+    loaded.content.release();
+    budget.release(loaded.permits);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Direct buffers reused from one file to the other, so that the content of the scanned files does not
+ * go through the heap. Buffers are allocated in size classes, powers of two from {@value #MIN_BUFFER_SIZE}
+ * to {@value #BUFFER_SIZE} bytes, so that a small file only takes a small buffer. The direct buffers of
+ * the pool are bounded by a total number of bytes: once it is reached, a heap buffer is allocated
+ * instead, so that loading a file never waits for another one to be scanned.
+ * Can be used concurrently.
+ */
+final class ByteBufferPool {
+
+  static final int MIN_BUFFER_SIZE = 4 * 1024;
+  // larger files are read in chunks
+  static final int BUFFER_SIZE = CandidateLineReader.CHUNK_THRESHOLD;
+
+  private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+
+  private final long maxDirectBytes;
+  private final AtomicLong allocatedBytes = new AtomicLong();
+  // free buffers by size class, the smallest first
+  private final Queue<ByteBuffer>[] free;
+
+  @SuppressWarnings("unchecked")
+  ByteBufferPool(long maxDirectBytes) {
+    this.maxDirectBytes = maxDirectBytes;
+    this.free = new Queue[Integer.numberOfTrailingZeros(BUFFER_SIZE) - MIN_SHIFT + 1];
+    for (int i = 0; i < free.length; i++) {
+      free[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  /**
+   * An empty buffer of at least the given capacity, which must not be larger than {@value #BUFFER_SIZE}.
+   * Its limit is the given capacity.
+   */
+  ByteBuffer acquire(int capacity) {
+    int sizeClass = sizeClass(capacity);
+    ByteBuffer buffer = free[sizeClass].poll();
+    if (buffer == null) {
+      int size = MIN_BUFFER_SIZE << sizeClass;
+      if (allocatedBytes.addAndGet(size) <= maxDirectBytes) {
+        buffer = ByteBuffer.allocateDirect(size);
+      } else {
+        allocatedBytes.addAndGet(-size);
+        return ByteBuffer.allocate(capacity);
+      }
+    }
+    // Buffer methods are called through Buffer, as the ByteBuffer overrides of Java 9+ do not exist on Java 8
+    ((Buffer) buffer).clear();
+    ((Buffer) buffer).limit(capacity);
+    return buffer;
+  }
+
+  /**
+   * Gives back a buffer returned by {@link #acquire}. Heap buffers are left to the garbage collector.
+   */
+  void release(ByteBuffer buffer) {
+    if (buffer.isDirect()) {
+      free[sizeClass(buffer.capacity())].offer(buffer);
+    }
+  }
+
+  private static int sizeClass(int capacity) {
+    if (capacity <= MIN_BUFFER_SIZE) {
+      return 0;
+    }
+    // smallest power of two not lower than the capacity
+    return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Findings of a file, as stored in an entry of the {@link FooLintScanCache}. The format is:
+ * <pre>
+ * magic "FLC", version byte
+ * string count, then each string as its UTF-8 length and bytes
+ * finding count, then each finding as the indexes of its rule key and message in the strings,
+ * its line as a delta from the previous finding, its start column and its length
+ * </pre>
+ * All integers are unsigned varints, the deltas being zigzag-encoded. Strings are decoded when
+ * the entry is loaded, as there are only a few distinct rule keys and messages, but findings are
+ * decoded one at a time while iterating, so that an object is only created when the issue is saved.
+ * The path of the file is not stored, as entries are addressed by content.
+ */
+final class CachedFindings extends AbstractList<ErrorDataFromExternalLinter> {
+
+  private static final byte[] MAGIC = {'F', 'L', 'C'};
+  // to be incremented each time the format changes
+  static final byte VERSION = 1;
+
+  private final ByteBuffer findings;
+  private final String[] strings;
+  private final int size;
+  private final String path;
+
+  private CachedFindings(ByteBuffer findings, String[] strings, int size, String path) {
+    this.findings = findings;
+    this.strings = strings;
+    this.size = size;
+    this.path = path;
+  }
+
+  static void write(List<ErrorDataFromExternalLinter> errors, OutputStream out) throws IOException {
+    Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+    for (ErrorDataFromExternalLinter error : errors) {
+      stringIndexes.putIfAbsent(error.getType(), stringIndexes.size());
+      stringIndexes.putIfAbsent(error.getDescription(), stringIndexes.size());
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bytes.write(MAGIC);
+    bytes.write(VERSION);
+    writeVarint(bytes, stringIndexes.size());
+    for (String string : stringIndexes.keySet()) {
+      byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+      writeVarint(bytes, utf8.length);
+      bytes.write(utf8);
+    }
+    writeVarint(bytes, errors.size());
+    int previousLine = 0;
+    for (ErrorDataFromExternalLinter error : errors) {
+      writeVarint(bytes, stringIndexes.get(error.getType()));
+      writeVarint(bytes, stringIndexes.get(error.getDescription()));
+      writeVarint(bytes, zigzag(error.getLine() - previousLine));
+      writeVarint(bytes, zigzag(error.getStartColumn()));
+      writeVarint(bytes, zigzag(error.getEndColumn() - error.getStartColumn()));
+      previousLine = error.getLine();
+    }
+    bytes.writeTo(out);
+  }
+
+  /**
+   * Returns null if the entry was written in another version of the format. The findings are
+   * checked to be complete, so that a truncated entry fails here rather than while iterating.
+   *
+   * @param path relative path of the file, given to the findings
+   */
+  static CachedFindings read(ByteBuffer buffer, String path) throws IOException {
+    try {
+      for (byte b : MAGIC) {
+        if (buffer.get() != b) {
+          throw new IOException("Not a FooLint cache entry");
+        }
+      }
+      if (buffer.get() != VERSION) {
+        return null;
+      }
+      String[] strings = new String[readCount(buffer)];
+      for (int i = 0; i < strings.length; i++) {
+        int length = readCount(buffer);
+        strings[i] = new String(bytes(buffer, length), StandardCharsets.UTF_8);
+      }
+      int size = readCount(buffer);
+      ByteBuffer findings = buffer.slice();
+      for (int i = 0; i < size; i++) {
+        readStringIndex(buffer, strings.length);
+        readStringIndex(buffer, strings.length);
+        readVarint(buffer);
+        readVarint(buffer);
+        readVarint(buffer);
+      }
+      return new CachedFindings(findings, strings, size, path);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated FooLint cache entry", e);
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Decodes the findings from the first one, prefer iterating.
+   */
+  @Override
+  public ErrorDataFromExternalLinter get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    Iterator<ErrorDataFromExternalLinter> it = iterator();
+    for (int i = 0; i < index; i++) {
+      it.next();
+    }
+    return it.next();
+  }
+
+  @Override
+  public Iterator<ErrorDataFromExternalLinter> iterator() {
+    return new Cursor();
+  }
+
+  /**
+   * Sequential decoding of the findings.
+   */
+  private final class Cursor implements Iterator<ErrorDataFromExternalLinter> {
+    private final ByteBuffer buffer = findings.duplicate();
+    private int next;
+    private int line;
+
+    @Override
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    @Override
+    public ErrorDataFromExternalLinter next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      next++;
+      String rule = strings[readVarint(buffer)];
+      String message = strings[readVarint(buffer)];
+      line += unzigzag(readVarint(buffer));
+      int startColumn = unzigzag(readVarint(buffer));
+      int endColumn = startColumn + unzigzag(readVarint(buffer));
+      return new ErrorDataFromExternalLinter(rule, message, path, line, startColumn, endColumn);
+    }
+  }
+
+  private static byte[] bytes(ByteBuffer buffer, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static int readCount(ByteBuffer buffer) throws IOException {
+    int count = readVarint(buffer);
+    if (count < 0 || count > buffer.remaining()) {
+      // each element takes at least one byte
+      throw new IOException("Invalid count in FooLint cache entry");
+    }
+    return count;
+  }
+
+  private static void readStringIndex(ByteBuffer buffer, int strings) throws IOException {
+    int index = readVarint(buffer);
+    if (index < 0 || index >= strings) {
+      throw new IOException("Invalid string index in FooLint cache entry");
+    }
+  }
+
+  private static void writeVarint(OutputStream out, int value) throws IOException {
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      out.write((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    out.write(remaining);
+  }
+
+  private static int readVarint(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new BufferUnderflowException();
+  }
+
+  private static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file line by line, only decoding into a String the lines which may contain an URL.
+ * The content is bulk-read in a pooled direct buffer (or in chunks of such a buffer for large
+ * files) and scanned byte per byte, so neither the file nor the lines without the "http" scheme
+ * are allocated in the heap.
+ * All lines are decoded when requested, for the rules which check every line.
+ * Lines are terminated by "\n", "\r\n" or "\r", as counted by SonarQube.
+ */
+final class CandidateLineReader {
+
+  /**
+   * Unless all lines are requested, lines given to the consumer are only candidates: the decoded text must
+   * still be checked.
+   */
+  interface LineConsumer {
+    void accept(int lineNumber, String text);
+  }
+
+  enum Outcome {
+    SCANNED,
+    // larger than the maximum size, the file was not read
+    TOO_LARGE,
+    // a NUL byte was found at the beginning of the file
+    BINARY
+  }
+
+  /**
+   * Content of a file, loaded by {@link #load} and not yet scanned.
+   */
+  static final class Content {
+    // null when the file is too large to be loaded, or read in chunks when scanned
+    final ByteBuffer bytes;
+    // only for the files read in chunks when scanned
+    final Path path;
+    final long size;
+    private final ByteBufferPool pool;
+
+    private Content(ByteBuffer bytes, Path path, long size, ByteBufferPool pool) {
+      this.bytes = bytes;
+      this.path = path;
+      this.size = size;
+      this.pool = pool;
+    }
+
+    /**
+     * Gives back the buffer to its pool once the content is scanned.
+     */
+    void release() {
+      if (bytes != null) {
+        pool.release(bytes);
+      }
+    }
+  }
+
+  static final class Result {
+    final Outcome outcome;
+    final int lines;
+    final long bytes;
+
+    private Result(Outcome outcome, int lines, long bytes) {
+      this.outcome = outcome;
+      this.lines = lines;
+      this.bytes = bytes;
+    }
+  }
+
+  // files larger than this are read in chunks of this size when scanned, instead of being loaded
+  static final int CHUNK_THRESHOLD = 1024 * 1024;
+
+  static final int BINARY_PROBE_LENGTH = 8000;
+
+  private static final String PROBE = "http:/\r\n";
+  private static final byte[] SCHEME = {'h', 't', 't', 'p'};
+  private static final byte[] SEPARATOR = {':', '/', '/'};
+  private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  private CandidateLineReader() {
+    // only statics
+  }
+
+  /**
+   * Files larger than {@code maxBytes} are skipped, unless it is not positive. Files of an ASCII
+   * compatible charset with a NUL byte in their first {@value #BINARY_PROBE_LENGTH} bytes are skipped
+   * as binary files.
+   */
+  static Result read(Path path, Charset charset, long maxBytes, ByteBufferPool pool, boolean allLines,
+    LineConsumer consumer) throws IOException {
+    Content content = load(path, maxBytes, pool);
+    try {
+      return scan(content, charset, allLines, consumer);
+    } finally {
+      content.release();
+    }
+  }
+
+  /**
+   * The I/O part of {@link #read}: the file is read in a buffer of the pool, unless larger than
+   * {@value #CHUNK_THRESHOLD} bytes, in which case it is read in chunks when scanned. Files larger than
+   * {@code maxBytes} are not read, unless it is not positive. The content must be released once scanned.
+   */
+  static Content load(Path path, long maxBytes, ByteBufferPool pool) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (maxBytes > 0 && size > maxBytes) {
+        return new Content(null, null, size, null);
+      }
+      if (size > CHUNK_THRESHOLD) {
+        return new Content(null, path, size, pool);
+      }
+      ByteBuffer buffer = pool.acquire((int) size);
+      try {
+        fill(channel, buffer);
+      } catch (IOException | RuntimeException e) {
+        pool.release(buffer);
+        throw e;
+      }
+      // Buffer methods are called through Buffer, as the ByteBuffer overrides of Java 9+ do not exist on Java 8
+      ((Buffer) buffer).flip();
+      return new Content(buffer, null, size, pool);
+    }
+  }
+
+  /**
+   * The CPU part of {@link #read}, which only does I/O for the files read in chunks.
+   */
+  static Result scan(Content content, Charset charset, boolean allLines, LineConsumer consumer) throws IOException {
+    if (content.path != null) {
+      return scanChunks(content, charset, allLines, consumer);
+    }
+    if (content.bytes == null) {
+      return new Result(Outcome.TOO_LARGE, 0, content.size);
+    }
+    if (!isAsciiCompatible(charset)) {
+      String decoded = charset.decode(content.bytes.duplicate()).toString();
+      return new Result(Outcome.SCANNED, scanDecoded(new StringReader(decoded), consumer), content.size);
+    }
+    if (isBinary(content.bytes)) {
+      return new Result(Outcome.BINARY, 0, content.size);
+    }
+    LineScanner scanner = new LineScanner(charset, allLines, consumer);
+    scanner.scan(content.bytes, byteOrderMarkLength(content.bytes, charset), true);
+    return new Result(Outcome.SCANNED, scanner.lineNumber, content.size);
+  }
+
+  /**
+   * Reads the file in a buffer of {@value #CHUNK_THRESHOLD} bytes from the pool. The last line of a chunk,
+   * when not complete, is moved to the beginning of the buffer and scanned again with the next chunk. The
+   * buffer is only grown, in the heap, for a line longer than it.
+   */
+  private static Result scanChunks(Content content, Charset charset, boolean allLines, LineConsumer consumer)
+    throws IOException {
+    try (FileChannel channel = FileChannel.open(content.path, StandardOpenOption.READ)) {
+      if (!isAsciiCompatible(charset)) {
+        // malformed input is replaced, like by Charset.decode for the files loaded at once
+        Reader reader = Channels.newReader(channel, charset.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE), -1);
+        return new Result(Outcome.SCANNED, scanDecoded(reader, consumer), content.size);
+      }
+      ByteBuffer pooled = content.pool.acquire(CHUNK_THRESHOLD);
+      try {
+        ByteBuffer buffer = pooled;
+        boolean endOfFile = fill(channel, buffer);
+        ((Buffer) buffer).flip();
+        if (isBinary(buffer)) {
+          return new Result(Outcome.BINARY, 0, content.size);
+        }
+        LineScanner scanner = new LineScanner(charset, allLines, consumer);
+        int lineStart = scanner.scan(buffer, byteOrderMarkLength(buffer, charset), endOfFile);
+        while (!endOfFile) {
+          ((Buffer) buffer).position(lineStart);
+          buffer.compact();
+          if (!buffer.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+            ((Buffer) buffer).flip();
+            larger.put(buffer);
+            buffer = larger;
+          }
+          endOfFile = fill(channel, buffer);
+          ((Buffer) buffer).flip();
+          lineStart = scanner.scan(buffer, 0, endOfFile);
+        }
+        return new Result(Outcome.SCANNED, scanner.lineNumber, content.size);
+      } finally {
+        content.pool.release(pooled);
+      }
+    }
+  }
+
+  /**
+   * Reads until the buffer is full or the end of the file, and returns whether the end of the file is reached.
+   */
+  private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int byteOrderMarkLength(ByteBuffer content, Charset charset) {
+    return startsWith(content, 0, content.limit(), UTF8_BOM) && StandardCharsets.UTF_8.equals(charset) ? UTF8_BOM.length : 0;
+  }
+
+  private static boolean isBinary(ByteBuffer content) {
+    int end = Math.min(content.limit(), BINARY_PROBE_LENGTH);
+    for (int i = 0; i < end; i++) {
+      if (content.get(i) == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gives the lines to the consumer, counting them from one chunk of the file to the next.
+   */
+  private static final class LineScanner {
+    private final Charset charset;
+    private final boolean allLines;
+    private final LineConsumer consumer;
+    private int lineNumber = 1;
+
+    private LineScanner(Charset charset, boolean allLines, LineConsumer consumer) {
+      this.charset = charset;
+      this.allLines = allLines;
+      this.consumer = consumer;
+    }
+
+    /**
+     * Scans the lines of the content from {@code lineStart}. Unless at the end of the file, the last line is
+     * not scanned when it may not be complete, including when it ends with "\r" which may be followed by "\n".
+     * Returns the start of this line, or the limit of the content.
+     */
+    int scan(ByteBuffer content, int lineStart, boolean endOfFile) {
+      int limit = content.limit();
+      boolean candidate = allLines;
+      for (int i = lineStart; i < limit; i++) {
+        byte b = content.get(i);
+        if (b == '\n' || b == '\r') {
+          if (b == '\r' && i + 1 == limit && !endOfFile) {
+            return lineStart;
+          }
+          if (candidate) {
+            consumer.accept(lineNumber, decode(content, lineStart, i, charset));
+          }
+          if (b == '\r' && i + 1 < limit && content.get(i + 1) == '\n') {
+            i++;
+          }
+          lineNumber++;
+          lineStart = i + 1;
+          candidate = allLines;
+        } else if (b == 'h' && !candidate) {
+          candidate = isSchemeAt(content, i, limit);
+        }
+      }
+      if (!endOfFile) {
+        return lineStart;
+      }
+      if (candidate && lineStart < limit) {
+        consumer.accept(lineNumber, decode(content, lineStart, limit, charset));
+      }
+      return limit;
+    }
+  }
+
+  private static boolean isSchemeAt(ByteBuffer content, int index, int limit) {
+    if (!startsWith(content, index, limit, SCHEME)) {
+      return false;
+    }
+    int next = index + SCHEME.length;
+    if (next < limit && content.get(next) == 's') {
+      next++;
+    }
+    return startsWith(content, next, limit, SEPARATOR);
+  }
+
+  private static boolean startsWith(ByteBuffer content, int index, int limit, byte[] prefix) {
+    if (index + prefix.length > limit) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (content.get(index + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String decode(ByteBuffer content, int start, int end, Charset charset) {
+    ByteBuffer line = content.duplicate();
+    ((Buffer) line).limit(end);
+    ((Buffer) line).position(start);
+    return charset.decode(line).toString();
+  }
+
+  /**
+   * Whether line terminators and the URL scheme are encoded as in ASCII, so that
+   * they can be searched directly in bytes. False for UTF-16 or UTF-32 for example.
+   */
+  private static boolean isAsciiCompatible(Charset charset) {
+    return Arrays.equals(PROBE.getBytes(charset), PROBE.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Scans the decoded characters of a charset which is not ASCII compatible. Returns the number of lines.
+   */
+  private static int scanDecoded(Reader reader, LineConsumer consumer) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int lineNumber = 1;
+    boolean first = true;
+    boolean afterCarriageReturn = false;
+    char[] chars = new char[8192];
+    int count;
+    while ((count = reader.read(chars)) >= 0) {
+      for (int i = 0; i < count; i++) {
+        char c = chars[i];
+        boolean byteOrderMark = first && c == '\uFEFF';
+        boolean lineFeedAfterCarriageReturn = afterCarriageReturn && c == '\n';
+        first = false;
+        afterCarriageReturn = false;
+        if (byteOrderMark || lineFeedAfterCarriageReturn) {
+          // like SonarQube, columns do not count the byte order mark
+          continue;
+        }
+        if (c == '\n' || c == '\r') {
+          consumer.accept(lineNumber, line.toString());
+          line.setLength(0);
+          lineNumber++;
+          afterCarriageReturn = c == '\r';
+        } else {
+          line.append(c);
+        }
+      }
+    }
+    if (line.length() > 0) {
+      consumer.accept(lineNumber, line.toString());
+    }
+    return lineNumber;
+  }
+}
@@ -21,17 +21,19 @@ package org.sonarsource.plugins.example.rules;
 
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
+import org.sonar.api.scanner.sensor.ProjectSensor;
+import org.sonarsource.plugins.example.measures.ExampleMetrics;
+import org.sonarsource.plugins.example.measures.SensorTelemetry;
 
 /**
  * Generates issues on all java files at line 1. This rule
  * must be activated in the Quality profile.
  */
-public class CreateIssuesOnJavaFilesSensor implements Sensor {
+public class CreateIssuesOnJavaFilesSensor implements ProjectSensor {
 
   private static final double ARBITRARY_GAP = 2.0;
   private static final int LINE_1 = 1;
@@ -49,6 +51,8 @@ public class CreateIssuesOnJavaFilesSensor implements Sensor {
 
   @Override
   public void execute(SensorContext context) {
+    SensorTelemetry telemetry = new SensorTelemetry(context);
+    int count = 0;
     FileSystem fs = context.fileSystem();
     Iterable<InputFile> javaFiles = fs.inputFiles(fs.predicates().hasLanguage("java"));
     for (InputFile javaFile : javaFiles) {
@@ -66,6 +70,11 @@ public class CreateIssuesOnJavaFilesSensor implements Sensor {
         .message("You can't do anything. This is first line!");
       newIssue.at(primaryLocation);
       newIssue.save();
+      count++;
     }
+    // one issue per file
+    telemetry.save(ExampleMetrics.JAVA_LINE1_SENSOR_FILES, count);
+    telemetry.save(ExampleMetrics.JAVA_LINE1_SENSOR_ISSUES, count);
+    telemetry.saveElapsedTime(ExampleMetrics.JAVA_LINE1_SENSOR_TIME);
   }
 }
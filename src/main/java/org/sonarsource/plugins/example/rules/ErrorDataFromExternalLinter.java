@@ -0,0 +1,99 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+/**
+ * An issue found by FooLint, either read from its report or found while scanning a file.
+ */
+class ErrorDataFromExternalLinter {
+
+  private final String externalRuleId;
+  private final String issueMessage;
+  private final String filePath;
+  private final int line;
+  private final int startColumn;
+  private final int endColumn;
+
+  public ErrorDataFromExternalLinter(final String externalRuleId, final String issueMessage, final String filePath,
+      final int line) {
+    this(externalRuleId, issueMessage, filePath, line, 0, 0);
+  }
+
+  /**
+   * Columns are offsets in the line, the end being exclusive. Without columns, the issue is on the whole line.
+   */
+  public ErrorDataFromExternalLinter(final String externalRuleId, final String issueMessage, final String filePath,
+      final int line, final int startColumn, final int endColumn) {
+    this.externalRuleId = externalRuleId;
+    this.issueMessage = issueMessage;
+    this.filePath = filePath;
+    this.line = line;
+    this.startColumn = startColumn;
+    this.endColumn = endColumn;
+  }
+
+  public String getType() {
+    return externalRuleId;
+  }
+
+  public String getDescription() {
+    return issueMessage;
+  }
+
+  public String getFilePath() {
+    return filePath;
+  }
+
+  public int getLine() {
+    return line;
+  }
+
+  public int getStartColumn() {
+    return startColumn;
+  }
+
+  public int getEndColumn() {
+    return endColumn;
+  }
+
+  public boolean hasColumns() {
+    return endColumn > startColumn;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder s = new StringBuilder();
+    s.append(externalRuleId);
+    s.append("|");
+    s.append(issueMessage);
+    s.append("|");
+    s.append(filePath);
+    s.append("(");
+    s.append(line);
+    if (hasColumns()) {
+      s.append(":");
+      s.append(startColumn);
+      s.append("-");
+      s.append(endColumn);
+    }
+    s.append(")");
+    return s.toString();
+  }
+}
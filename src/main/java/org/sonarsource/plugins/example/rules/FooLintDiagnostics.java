@@ -0,0 +1,128 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Diagnostics of a FooLint analysis. Counters are summarized at INFO level once per analysis,
+ * while details on each file, line or issue are only logged at DEBUG or TRACE level, with a cap
+ * on the number of detail lines so that debugging a large project does not produce gigabytes
+ * of logs. Messages are parameterized, so nothing is formatted when the level is disabled.
+ * Can be used concurrently from the scanner threads.
+ */
+final class FooLintDiagnostics {
+
+  enum Counter {
+    FILES_SCANNED("files scanned"),
+    LINES_SCANNED("lines scanned"),
+    BYTES_READ("bytes read"),
+    FILES_SKIPPED("files skipped (too large or binary)"),
+    BYTES_SKIPPED("bytes skipped"),
+    FILES_UNREADABLE("files not readable"),
+    URL_LINES("lines with URL"),
+    URLS("URLs"),
+    WHITELISTED_URLS("whitelisted URLs"),
+    REPORT_ERRORS("report errors"),
+    INACTIVE_RULE_ERRORS("report errors of inactive rules"),
+    ISSUES_SAVED("issues saved"),
+    DUPLICATE_ISSUES("duplicate issues"),
+    ISSUES_OVER_LIMIT("issues over the per-file limit"),
+    ISSUES_IGNORED("issues ignored");
+
+    private final String label;
+
+    Counter(String label) {
+      this.label = label;
+    }
+  }
+
+  private static final Logger LOGGER = Loggers.get(FooLintDiagnostics.class);
+
+  private final int maxDetailLines;
+  private final AtomicInteger detailLines = new AtomicInteger();
+  private final Map<Counter, AtomicLong> counters = new EnumMap<>(Counter.class);
+
+  FooLintDiagnostics(int maxDetailLines) {
+    this.maxDetailLines = maxDetailLines;
+    for (Counter counter : Counter.values()) {
+      counters.put(counter, new AtomicLong());
+    }
+  }
+
+  void increment(Counter counter) {
+    counters.get(counter).incrementAndGet();
+  }
+
+  void add(Counter counter, long value) {
+    counters.get(counter).addAndGet(value);
+  }
+
+  long get(Counter counter) {
+    return counters.get(counter).get();
+  }
+
+  void debug(String format, Object arg) {
+    if (LOGGER.isDebugEnabled() && acquireDetailLine()) {
+      LOGGER.debug(format, arg);
+    }
+  }
+
+  void debug(String format, Object arg1, Object arg2) {
+    if (LOGGER.isDebugEnabled() && acquireDetailLine()) {
+      LOGGER.debug(format, arg1, arg2);
+    }
+  }
+
+  void trace(String format, Object arg1, Object arg2) {
+    if (LOGGER.isTraceEnabled() && acquireDetailLine()) {
+      LOGGER.trace(format, arg1, arg2);
+    }
+  }
+
+  void trace(String format, Object arg1, Object arg2, Object arg3) {
+    if (LOGGER.isTraceEnabled() && acquireDetailLine()) {
+      LOGGER.trace(format, arg1, arg2, arg3);
+    }
+  }
+
+  private boolean acquireDetailLine() {
+    int count = detailLines.incrementAndGet();
+    if (count == maxDetailLines + 1) {
+      LOGGER.debug("Maximum of {} FooLint diagnostic lines reached, next ones are not logged", maxDetailLines);
+    }
+    return count <= maxDetailLines;
+  }
+
+  void logSummary() {
+    StringBuilder summary = new StringBuilder("FooLint:");
+    String separator = " ";
+    for (Map.Entry<Counter, AtomicLong> counter : counters.entrySet()) {
+      summary.append(separator).append(counter.getValue().get()).append(' ').append(counter.getKey().label);
+      separator = ", ";
+    }
+    LOGGER.info(summary.toString());
+  }
+}
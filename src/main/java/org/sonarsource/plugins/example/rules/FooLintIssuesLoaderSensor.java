@@ -19,29 +19,55 @@
  */
 package org.sonarsource.plugins.example.rules;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
-import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.sensor.Sensor;
+import org.sonar.api.batch.rule.ActiveRule;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
-import org.sonar.api.batch.sensor.issue.NewIssue;
-import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.config.Configuration;
-import org.sonar.api.rule.RuleKey;
+import org.sonar.api.scanner.sensor.ProjectSensor;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.plugins.example.ExamplePlugin;
+import org.sonarsource.plugins.example.languages.FooFileMatcher;
 import org.sonarsource.plugins.example.languages.FooLanguage;
+import org.sonarsource.plugins.example.measures.ExampleMetrics;
+import org.sonarsource.plugins.example.measures.SensorTelemetry;
+import org.sonarsource.plugins.example.rules.FooLintDiagnostics.Counter;
+import org.sonarsource.plugins.example.settings.FooLintProperties;
 
 /**
  * The goal of this Sensor is to load the results of an analysis performed by a
@@ -49,32 +75,49 @@ import org.sonarsource.plugins.example.languages.FooLanguage;
  * are corresponding to the rules defined in 'rules.xml'. To be very abstract,
  * these rules are applied on source files made with the fictive language Foo.
  */
-public class FooLintIssuesLoaderSensor implements Sensor {
+public class FooLintIssuesLoaderSensor implements ProjectSensor {
 
   private static final Logger LOGGER = Loggers.get(FooLintIssuesLoaderSensor.class);
 
   protected static final String REPORT_PATH_KEY = "sonar.foolint.reportPath";
 
+  private static final String URL_RULE_KEY = "foundURL";
+  private static final String SONAR_USER_HOME_KEY = "sonar.userHome";
+
+  private static final int FILES_IN_FLIGHT_PER_THREAD = 4;
+  // with asynchronous I/O, the files read ahead are bounded by the byte budget rather than by their number
+  private static final int ASYNC_FILES_IN_FLIGHT = 1024;
+
   protected final Configuration config;
   protected final FileSystem fileSystem;
+  private final FooLanguage fooLanguage;
   protected SensorContext context;
+  private Path baseDir;
+  private InputFileIndex inputFileIndex;
+  private FooLintDiagnostics diagnostics;
+  private IssueEmitter issueEmitter;
+  private Set<String> activeRuleKeys;
 
   /**
    * Use of IoC to get Settings, FileSystem, RuleFinder and ResourcePerspectives
    */
-  public FooLintIssuesLoaderSensor(final Configuration config, final FileSystem fileSystem) {
-    LOGGER.info("JCV FooLintIssuesLoaderSensor() 1");
+  public FooLintIssuesLoaderSensor(final Configuration config, final FileSystem fileSystem, final FooLanguage fooLanguage) {
     this.config = config;
     this.fileSystem = fileSystem;
+    this.fooLanguage = fooLanguage;
   }
 
   @Override
   public void describe(final SensorDescriptor descriptor) {
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.describe() 1");
     descriptor.name("FooLint Issues Loader Sensor");
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.describe() 2");
-    //descriptor.onlyOnLanguage(FooLanguage.KEY);
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.describe() 3");
+    // not executed at all when no rule of the repository is active
+    descriptor.createIssuesForRuleRepositories(FooLintRulesDefinition.REPO_KEY);
+    if (config.getStringArray(FooLintProperties.INCLUSIONS_KEY).length == 0
+      && !fooLanguage.fileMatcher().hasPatterns()
+      && !config.hasKey(reportPathKey())) {
+      // only Foo files are scanned
+      descriptor.onlyOnLanguage(FooLanguage.KEY);
+    }
   }
 
   protected String reportPathKey() {
@@ -82,157 +125,273 @@ public class FooLintIssuesLoaderSensor implements Sensor {
   }
 
   protected String getReportPath() {
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.getReportPath() 1");
     final Optional<String> o = config.get(reportPathKey());
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.getReportPath() 2");
     if (o.isPresent()) {
-      LOGGER.info("JCV FooLintIssuesLoaderSensor.getReportPath() 3");
       return o.get();
     }
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.getReportPath() 4");
     return null;
   }
 
   @Override
   public void execute(final SensorContext context) {
+    final SensorTelemetry telemetry = new SensorTelemetry(context);
     this.context = context;
-    Optional<String> whitelistOptional = config.get(ExamplePlugin.WHITELIST_PROPERTY_KEY);
-    String whitelist = whitelistOptional.get();
-    LOGGER.info("JCV Whitelist: " + whitelist);
-    List<String> whitelistLines = Arrays.asList(whitelist.split("\\n"));
-    for(String line: whitelistLines) {
-      LOGGER.info("JCV Whitelist Line: " + line);
+    this.diagnostics = new FooLintDiagnostics(config.getInt(FooLintProperties.LOG_MAX_LINES_KEY)
+      .orElse(FooLintProperties.LOG_MAX_LINES_DEFAULT_VALUE));
+    this.baseDir = InputFileIndex.baseDir(fileSystem);
+    this.inputFileIndex = new InputFileIndex(fileSystem, diagnostics);
+    this.issueEmitter = new IssueEmitter(context, config.getInt(FooLintProperties.MAX_ISSUES_PER_FILE_KEY)
+      .orElse(FooLintProperties.MAX_ISSUES_PER_FILE_DEFAULT_VALUE), diagnostics);
+    final Collection<ActiveRule> activeRules = context.activeRules().findByRepository(FooLintRulesDefinition.REPO_KEY);
+    this.activeRuleKeys = new HashSet<>();
+    for (ActiveRule activeRule : activeRules) {
+      activeRuleKeys.add(activeRule.ruleKey().rule());
     }
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 1");
-    LOGGER.info("JCV (mock) Parsing 'FooLint' Analysis Results");
-    final FooLintAnalysisResultsParser parser = new FooLintAnalysisResultsParser();
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 2");
     final FileSystem fs = context.fileSystem();
-    final Iterable<InputFile> files = context.fileSystem().inputFiles(fs.predicates().all());
-    for (InputFile inputFile : files) {
-      final List<ErrorDataFromExternalLinter> errors = parser.scanForUrls(inputFile, whitelistLines);
-      LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 3");
-      for (final ErrorDataFromExternalLinter error : errors) {
-        LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 4");
-        getResourceAndSaveIssue(error);
+    final String reportPath = getReportPath();
+    if (reportPath != null) {
+      try {
+        parseAndSaveResults(fs.resolvePath(reportPath));
+      } catch (XMLStreamException e) {
+        throw new IllegalStateException("Unable to parse the provided FooLint file", e);
       }
     }
+    // compiled once for all the files of the analysis, only from the active rules
+    final LineRulePack rulePack = LineRulePack.compile(activeRules);
+    final boolean urlRuleActive = activeRuleKeys.contains(URL_RULE_KEY);
+    if (urlRuleActive || !rulePack.isEmpty()) {
+      scanFiles(fs, urlRuleActive, rulePack, telemetry);
+    } else {
+      LOGGER.info("No FooLint rule checking the content of files is active, files are not scanned");
+    }
+    if (inputFileIndex.missingPaths() > 0) {
+      LOGGER.warn("Issues of {} unknown files were ignored", inputFileIndex.missingPaths());
+    }
+    if (diagnostics.get(Counter.FILES_UNREADABLE) > 0) {
+      LOGGER.warn("{} files could not be scanned, see the debug logs", diagnostics.get(Counter.FILES_UNREADABLE));
+    }
+    diagnostics.logSummary();
+    telemetry.save(ExampleMetrics.FOOLINT_FILES_SCANNED, diagnostics.get(Counter.FILES_SCANNED));
+    telemetry.save(ExampleMetrics.FOOLINT_KILOBYTES_READ, diagnostics.get(Counter.BYTES_READ) / 1024);
+    telemetry.save(ExampleMetrics.FOOLINT_LINES_SCANNED, diagnostics.get(Counter.LINES_SCANNED));
+    telemetry.save(ExampleMetrics.FOOLINT_ISSUES_RAISED, diagnostics.get(Counter.ISSUES_SAVED));
+    telemetry.saveElapsedTime(ExampleMetrics.FOOLINT_SENSOR_TIME);
   }
 
-  /*
-   * @Override public void execute(final SensorContext context) {
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 1"); String reportPath =
-   * getReportPath(); LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 2"); if
-   * (reportPath != null) {
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 3"); this.context =
-   * context; LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 4"); File
-   * analysisResultsFile = new File(reportPath);
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 5"); try {
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 6");
-   * parseAndSaveResults(analysisResultsFile);
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 7"); } catch
-   * (XMLStreamException e) {
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 8"); throw new
-   * IllegalStateException("Unable to parse the provided FooLint file", e); }
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 9"); } //JCV START else{
-   * this.context = context;
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 10"); try {
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 11");
-   * parseAndSaveResultsJCV();
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 12"); } catch
-   * (XMLStreamException e) {
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 13"); throw new
-   * IllegalStateException("Unable to parse the provided FooLint file", e); }
-   * LOGGER.info("JCV FooLintIssuesLoaderSensor.execute() 14"); } //JCV END }
+  private void scanFiles(final FileSystem fs, final boolean urlRuleActive, final LineRulePack rulePack,
+      final SensorTelemetry telemetry) {
+    final List<String> whitelistLines;
+    final UrlScanner urlScanner;
+    if (urlRuleActive) {
+      final String whitelist = config.get(ExamplePlugin.WHITELIST_PROPERTY_KEY).orElse("");
+      whitelistLines = Arrays.asList(whitelist.split("\\n"));
+      LOGGER.debug("Whitelist: {}", whitelistLines);
+      // compiled once per analysis, as the sensor is executed on the project only, and dropped after it
+      urlScanner = new UrlScanner(whitelistLines);
+    } else {
+      whitelistLines = Collections.emptyList();
+      urlScanner = null;
+    }
+    final FooLintAnalysisResultsParser parser = new FooLintAnalysisResultsParser();
+    final Iterable<InputFile> files = fs.inputFiles(filesToScan(fs));
+    final long maxFileSize = 1024L * config.getInt(FooLintProperties.MAX_FILE_SIZE_KEY)
+      .orElse(FooLintProperties.MAX_FILE_SIZE_DEFAULT_VALUE);
+    final List<String> fingerprint = new ArrayList<>(whitelistLines);
+    fingerprint.add(URL_RULE_KEY + "=" + urlRuleActive);
+    fingerprint.add("maxFileSize=" + maxFileSize);
+    fingerprint.addAll(rulePack.fingerprint());
+    final FooLintScanCache cache = loadCache(fs, fingerprint);
+    final int threads = config.getInt(FooLintProperties.THREADS_KEY).orElse(Runtime.getRuntime().availableProcessors());
+    // direct bytes of one full buffer per thread, as a file is loaded and scanned by the same thread, dropped with the pool after the scan
+    final ByteBufferPool bufferPool = new ByteBufferPool((long) threads * ByteBufferPool.BUFFER_SIZE);
+    final Function<FileToScan, List<ErrorDataFromExternalLinter>> fileScanner =
+      file -> parser.scanFile(file, urlScanner, rulePack, maxFileSize, bufferPool, cache);
+    if (config.getBoolean(FooLintProperties.ASYNC_IO_KEY).orElse(false)) {
+      scanFilesWithAsyncIo(files,
+        (file, content) -> parser.scanUnlessCached(file, urlScanner, rulePack, content, cache),
+        maxFileSize, Math.max(1, threads));
+    } else if (threads > 1) {
+      scanFilesInParallel(files, fileScanner, threads);
+    } else {
+      for (InputFile inputFile : files) {
+        issueEmitter.emitAll(inputFile, fileScanner.apply(new FileToScan(inputFile, baseDir)));
+      }
+    }
+    if (cache != null) {
+      LOGGER.info("FooLint cache: {} files found, {} added", cache.hits(), cache.writes());
+      cache.evict();
+      telemetry.save(ExampleMetrics.FOOLINT_CACHE_HITS, cache.hits());
+    }
+  }
+
+  /**
+   * Main Foo files, including the ones only selected by the glob patterns of the Foo file suffixes,
+   * and the files matching the additional inclusions, minus the exclusions.
+   * Test files are not scanned as their issues would be ignored.
    */
+  private FilePredicate filesToScan(final FileSystem fs) {
+    final FilePredicates predicates = fs.predicates();
+    final String[] inclusions = config.getStringArray(FooLintProperties.INCLUSIONS_KEY);
+    final String[] exclusions = config.getStringArray(FooLintProperties.EXCLUSIONS_KEY);
+    FilePredicate selected = predicates.hasLanguage(FooLanguage.KEY);
+    // compiled again by the language when the suffixes change
+    final FooFileMatcher fooFileMatcher = fooLanguage.fileMatcher();
+    if (fooFileMatcher.hasPatterns()) {
+      selected = predicates.or(selected,
+        inputFile -> fooFileMatcher.matches(InputFileIndex.relativePath(baseDir, Paths.get(inputFile.uri()))));
+    }
+    if (inclusions.length > 0) {
+      selected = predicates.or(selected, predicates.matchesPathPatterns(inclusions));
+    }
+    if (exclusions.length > 0) {
+      selected = predicates.and(selected, predicates.doesNotMatchPathPatterns(exclusions));
+    }
+    return predicates.and(predicates.hasType(InputFile.Type.MAIN), selected);
+  }
 
-   /*
-  // JCV START
-  protected void parseAndSaveResultsJCV() throws XMLStreamException {
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.parseAndSaveResultsJCV() 1");
-    LOGGER.info("JCV (mock) Parsing 'FooLint' Analysis Results");
-    final FooLintAnalysisResultsParser parser = new FooLintAnalysisResultsParser();
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.parseAndSaveResultsJCV() 2");
-    final List<ErrorDataFromExternalLinter> errors = parser.parseJCV();
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.parseAndSaveResultsJCV() 3");
-    for (final ErrorDataFromExternalLinter error : errors) {
-      LOGGER.info("JCV FooLintIssuesLoaderSensor.parseAndSaveResultsJCV() 4");
-      getResourceAndSaveIssue(error);
+  /**
+   * Returns null when the cache is disabled.
+   */
+  private FooLintScanCache loadCache(final FileSystem fs, final List<String> fingerprint) {
+    final int maxSize = config.getInt(FooLintProperties.CACHE_MAX_SIZE_KEY)
+      .orElse(FooLintProperties.CACHE_MAX_SIZE_DEFAULT_VALUE);
+    if (maxSize <= 0) {
+      return null;
     }
+    final Optional<String> cachePath = config.get(FooLintProperties.CACHE_PATH_KEY);
+    final Path directory = cachePath.isPresent()
+      ? fs.baseDir().toPath().resolve(cachePath.get())
+      : userHome().resolve("cache").resolve("foolint");
+    return FooLintScanCache.open(directory, FooLintScanCache.fingerprint(fingerprint), maxSize * 1024L * 1024L);
   }
-  // JCV END
-  */
 
-  protected void parseAndSaveResults(final File file) throws XMLStreamException {
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.parseAndSaveResults() 1");
-    LOGGER.info("(mock) Parsing 'FooLint' Analysis Results");
-    final FooLintAnalysisResultsParser parser = new FooLintAnalysisResultsParser();
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.parseAndSaveResults() 2");
-    final List<ErrorDataFromExternalLinter> errors = parser.parse(file);
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.parseAndSaveResults() 3");
-    for (final ErrorDataFromExternalLinter error : errors) {
-      LOGGER.info("JCV FooLintIssuesLoaderSensor.parseAndSaveResults() 4");
-      getResourceAndSaveIssue(error);
+  /**
+   * The SonarQube user home of the scanner, where it caches the plugins.
+   */
+  private Path userHome() {
+    final Optional<String> userHome = config.get(SONAR_USER_HOME_KEY);
+    if (userHome.isPresent()) {
+      return Paths.get(userHome.get());
     }
+    return Paths.get(System.getProperty("user.home"), ".sonar");
   }
 
-  private void getResourceAndSaveIssue(final ErrorDataFromExternalLinter error) {
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.getResourceAndSaveIssue() 1");
-    LOGGER.info("JCV error.toString(): " + error.toString());
-    // LOGGER.debug(error.toString());
+  /**
+   * Files are read and scanned by a pool of worker threads, but issues are saved
+   * from the current thread only, as {@link SensorContext} is not thread-safe.
+   * The number of files scanned ahead of the saving of issues is bounded, so that
+   * results do not pile up in memory on large projects.
+   */
+  private void scanFilesInParallel(final Iterable<InputFile> files,
+      final Function<FileToScan, List<ErrorDataFromExternalLinter>> fileScanner, final int threads) {
+    final ExecutorService executor = Executors.newFixedThreadPool(threads, new FooLintThreadFactory("foolint-scanner-"));
+    try {
+      final Deque<PendingScan> pending = new ArrayDeque<>();
+      for (InputFile inputFile : files) {
+        final FileToScan file = new FileToScan(inputFile, baseDir);
+        pending.add(new PendingScan(inputFile, executor.submit(() -> fileScanner.apply(file))));
+        if (pending.size() >= threads * FILES_IN_FLIGHT_PER_THREAD) {
+          saveIssues(pending.poll());
+        }
+      }
+      while (!pending.isEmpty()) {
+        saveIssues(pending.poll());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.getResourceAndSaveIssue() 2");
-    final InputFile inputFile = fileSystem
-        .inputFile(fileSystem.predicates().and(fileSystem.predicates().hasRelativePath(error.getFilePath()),
-            fileSystem.predicates().hasType(InputFile.Type.MAIN)));
+  /**
+   * Files are loaded concurrently by an {@link AsyncFileReader}, then scanned by a pool of worker threads,
+   * so that the latency of a slow filesystem overlaps with the scanning of the files already loaded.
+   */
+  private void scanFilesWithAsyncIo(final Iterable<InputFile> files,
+      final BiFunction<FileToScan, CandidateLineReader.Content, List<ErrorDataFromExternalLinter>> contentScanner,
+      final long maxFileSize, final int threads) {
+    final ExecutorService executor = Executors.newFixedThreadPool(threads, new FooLintThreadFactory("foolint-scanner-"));
+    try (AsyncFileReader reader = new AsyncFileReader(
+      config.getInt(FooLintProperties.IO_THREADS_KEY).orElse(FooLintProperties.IO_THREADS_DEFAULT_VALUE),
+      config.getInt(FooLintProperties.IO_BUDGET_KEY).orElse(FooLintProperties.IO_BUDGET_DEFAULT_VALUE))) {
+      final Deque<PendingScan> pending = new ArrayDeque<>();
+      for (InputFile inputFile : files) {
+        final FileToScan file = new FileToScan(inputFile, baseDir);
+        pending.add(new PendingScan(inputFile, scanAsync(file, reader, contentScanner, maxFileSize, executor)));
+        if (pending.size() >= ASYNC_FILES_IN_FLIGHT) {
+          saveIssues(pending.poll());
+        }
+      }
+      while (!pending.isEmpty()) {
+        saveIssues(pending.poll());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.getResourceAndSaveIssue() 3");
+  /**
+   * The cache is looked up by the worker thread, once the file is loaded.
+   */
+  private CompletableFuture<List<ErrorDataFromExternalLinter>> scanAsync(final FileToScan file,
+      final AsyncFileReader reader,
+      final BiFunction<FileToScan, CandidateLineReader.Content, List<ErrorDataFromExternalLinter>> contentScanner,
+      final long maxFileSize, final ExecutorService executor) {
+    return reader.load(file.path, maxFileSize).handleAsync((loaded, failure) -> {
+      if (failure != null) {
+        unreadable(file, failure instanceof CompletionException ? failure.getCause() : failure);
+        return Collections.emptyList();
+      }
+      try {
+        return contentScanner.apply(file, loaded.content);
+      } finally {
+        reader.release(loaded);
+      }
+    }, executor);
+  }
 
-    LOGGER.info("inputFile null ? " + (inputFile == null));
+  /**
+   * Each file is logged in debug only, the files which could not be scanned being counted in the summary.
+   */
+  private void unreadable(final FileToScan file, final Throwable cause) {
+    diagnostics.increment(Counter.FILES_UNREADABLE);
+    diagnostics.debug("Unable to scan {}", file.relativePath, cause);
+  }
 
-    if (inputFile != null) {
-      LOGGER.info("JCV FooLintIssuesLoaderSensor.getResourceAndSaveIssue() 4");
-      saveIssue(inputFile, error.getLine(), error.getType(), error.getDescription());
-      LOGGER.info("JCV FooLintIssuesLoaderSensor.getResourceAndSaveIssue() 5");
-    } else {
-      LOGGER.info("JCV FooLintIssuesLoaderSensor.getResourceAndSaveIssue() 6");
-      LOGGER.error("Not able to find a InputFile with " + error.getFilePath());
+  private void saveIssues(final PendingScan scan) {
+    try {
+      issueEmitter.emitAll(scan.inputFile, scan.errors.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while scanning files", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Unable to scan files for URLs", e.getCause());
     }
   }
 
-  private void saveIssue(final InputFile inputFile, final int line, final String externalRuleKey,
-      final String message) {
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.saveIssue() 1");
-    LOGGER.info("JCV inputFile: " + inputFile.toString());
-    LOGGER.info("JCV line: " + line);
-    LOGGER.info("JCV externalRuleKey (error type): " + externalRuleKey);
-    LOGGER.info("JCV message (error description): " + message);
-    LOGGER.info("JCV InputFile language: " + inputFile.language());
-    final String repoKeyForLang = getRepositoryKeyForLanguage(inputFile.language());
-
-    final RuleKey ruleKey = RuleKey.of(repoKeyForLang, externalRuleKey);
-
-    LOGGER.info("JCV ruleKey: " + ruleKey);
-
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.saveIssue() 2");
-    LOGGER.info("JCV context: " + context);
-    final NewIssue newIssue = context.newIssue().forRule(ruleKey);
-
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.saveIssue() 3");
-    final NewIssueLocation primaryLocation = newIssue.newLocation().on(inputFile).message(message);
-    if (line > 0) {
-      LOGGER.info("JCV FooLintIssuesLoaderSensor.saveIssue() 4");
-      primaryLocation.at(inputFile.selectLine(line));
-    }
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.saveIssue() 5");
-    newIssue.at(primaryLocation);
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.saveIssue() 6");
-    newIssue.save();
+  protected void parseAndSaveResults(final File file) throws XMLStreamException {
+    LOGGER.info("Parsing 'FooLint' Analysis Results");
+    final FooLintAnalysisResultsParser parser = new FooLintAnalysisResultsParser();
+    parser.parse(file, error -> {
+      diagnostics.increment(Counter.REPORT_ERRORS);
+      getResourceAndSaveIssue(error);
+    });
   }
 
-  private static String getRepositoryKeyForLanguage(final String languageKey) {
-    LOGGER.info("JCV FooLintIssuesLoaderSensor.getRepositoryKeyForLanguage() 1");
-    return languageKey.toLowerCase() + "-" + FooLintRulesDefinition.KEY;
+  /**
+   * Issues are deduplicated by the emitter with the findings of the scan of the same file.
+   */
+  private void getResourceAndSaveIssue(final ErrorDataFromExternalLinter error) {
+    if (!activeRuleKeys.contains(error.getType())) {
+      diagnostics.increment(Counter.INACTIVE_RULE_ERRORS);
+      return;
+    }
+    final InputFile inputFile = inputFileIndex.get(error.getFilePath());
+    if (inputFile != null) {
+      issueEmitter.emit(inputFile, error);
+    } else {
+      diagnostics.debug("Ignoring {}", error);
+      diagnostics.increment(Counter.ISSUES_IGNORED);
+    }
   }
 
   @Override
@@ -240,134 +399,196 @@ public class FooLintIssuesLoaderSensor implements Sensor {
     return "FooLintIssuesLoaderSensor";
   }
 
-  private class ErrorDataFromExternalLinter {
+  private static class PendingScan {
 
-    private final String externalRuleId;
-    private final String issueMessage;
-    private final String filePath;
-    private final int line;
+    private final InputFile inputFile;
+    private final Future<List<ErrorDataFromExternalLinter>> errors;
 
-    public ErrorDataFromExternalLinter(final String externalRuleId, final String issueMessage, final String filePath,
-        final int line) {
-      LOGGER.info("JCV ErrorDataFromExternalLinter.constructor() 1");
-      this.externalRuleId = externalRuleId;
-      this.issueMessage = issueMessage;
-      this.filePath = filePath;
-      this.line = line;
-    }
-
-    public String getType() {
-      return externalRuleId;
+    private PendingScan(final InputFile inputFile, final Future<List<ErrorDataFromExternalLinter>> errors) {
+      this.inputFile = inputFile;
+      this.errors = errors;
     }
+  }
 
-    public String getDescription() {
-      return issueMessage;
-    }
+  /**
+   * What the worker threads need to know of a file, read from the {@link InputFile} on the sensor thread, as
+   * the metadata of the input files, including their charset, is computed lazily and without synchronization.
+   */
+  private static final class FileToScan {
 
-    public String getFilePath() {
-      return filePath;
-    }
+    private final Path path;
+    private final String relativePath;
+    private final Charset charset;
 
-    public int getLine() {
-      return line;
-    }
-
-    @Override
-    public String toString() {
-      final StringBuilder s = new StringBuilder();
-      s.append(externalRuleId);
-      s.append("|");
-      s.append(issueMessage);
-      s.append("|");
-      s.append(filePath);
-      s.append("(");
-      s.append(line);
-      s.append(")");
-      return s.toString();
+    private FileToScan(final InputFile inputFile, final Path baseDir) {
+      this.path = Paths.get(inputFile.uri());
+      this.relativePath = InputFileIndex.relativePath(baseDir, path);
+      this.charset = inputFile.charset();
     }
   }
 
   private class FooLintAnalysisResultsParser {
 
-    public List<ErrorDataFromExternalLinter> parse(final File file) throws XMLStreamException {
-      LOGGER.info("JCV FooLintAnalysisResultsParser.parse() 1");
+    /**
+     * Streams the FooLint report, each error being given to the consumer as soon as it is
+     * read, so that the memory used does not depend on the size of the report. Expected format:
+     * <pre>
+     * &lt;foolint&gt;
+     *   &lt;file path="src/MyClass.foo"&gt;
+     *     &lt;error rule="ExampleRule1" line="2" message="More precise description of the error"/&gt;
+     *   &lt;/file&gt;
+     * &lt;/foolint&gt;
+     * </pre>
+     * The line is optional, the issue is then reported on the file.
+     */
+    public void parse(final File file, final Consumer<ErrorDataFromExternalLinter> consumer) throws XMLStreamException {
       LOGGER.info("Parsing file {}", file.getAbsolutePath());
-
-      // as the goal of this example is not to demonstrate how to parse an xml file we
-      // return an hard coded list of FooError
-
-      final ErrorDataFromExternalLinter fooError1 = new ErrorDataFromExternalLinter("ExampleRule1",
-          "More precise description of the error", "src/MyClass.foo", 2);
-      final ErrorDataFromExternalLinter fooError2 = new ErrorDataFromExternalLinter("ExampleRule2",
-          "More precise description of the error", "src/MyClass.foo", 7);
-      LOGGER.info("JCV FooLintAnalysisResultsParser.parse() 2");
-
-      return Arrays.asList(fooError1, fooError2);
+      final XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+        final XMLStreamReader reader = factory.createXMLStreamReader(input);
+        try {
+          parse(reader, consumer);
+        } finally {
+          reader.close();
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read FooLint report " + file, e);
+      }
     }
 
-    /*
-
-    // JCV START
-    public List<ErrorDataFromExternalLinter> parseJCV() {
-      LOGGER.info("JCV FooLintAnalysisResultsParser.parseJCV() 1");
-      // LOGGER.info("Parsing file {}", file.getAbsolutePath());
-      // as the goal of this example is not to demonstrate how to parse an xml file we
-      // return an hard coded list of FooError
-
-      final File file = new File("src/MyClass.foo");
-      final List<ErrorDataFromExternalLinter> issues = scanForUrls(file);
+    private void parse(final XMLStreamReader reader, final Consumer<ErrorDataFromExternalLinter> consumer)
+        throws XMLStreamException {
+      String filePath = null;
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT && "file".equals(reader.getLocalName())) {
+          filePath = requiredAttribute(reader, "path");
+        } else if (event == XMLStreamConstants.END_ELEMENT && "file".equals(reader.getLocalName())) {
+          filePath = null;
+        } else if (event == XMLStreamConstants.START_ELEMENT && "error".equals(reader.getLocalName())) {
+          if (filePath == null) {
+            throw new XMLStreamException("Element 'error' must be declared in a 'file' element", reader.getLocation());
+          }
+          final String rule = requiredAttribute(reader, "rule");
+          final String message = requiredAttribute(reader, "message");
+          consumer.accept(new ErrorDataFromExternalLinter(rule, message, filePath, lineAttribute(reader)));
+        }
+      }
+    }
 
-      LOGGER.info("JCV FooLintAnalysisResultsParser.parseJCV() 2");
+    private String requiredAttribute(final XMLStreamReader reader, final String name) throws XMLStreamException {
+      final String value = reader.getAttributeValue(null, name);
+      if (value == null || value.isEmpty()) {
+        throw new XMLStreamException("Missing attribute '" + name + "' on element '" + reader.getLocalName() + "'",
+          reader.getLocation());
+      }
+      return value;
+    }
 
-      return issues;
+    private int lineAttribute(final XMLStreamReader reader) throws XMLStreamException {
+      final String value = reader.getAttributeValue(null, "line");
+      if (value == null || value.isEmpty()) {
+        return 0;
+      }
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        throw new XMLStreamException("Invalid line '" + value + "'", reader.getLocation(), e);
+      }
+    }
 
+    public List<ErrorDataFromExternalLinter> scanFile(final FileToScan file, final UrlScanner urlScanner,
+        final LineRulePack rulePack, final long maxFileSize, final ByteBufferPool bufferPool,
+        final FooLintScanCache cache) {
+      final CandidateLineReader.Content content;
+      try {
+        content = CandidateLineReader.load(file.path, maxFileSize, bufferPool);
+      } catch (final IOException e) {
+        unreadable(file, e);
+        return new ArrayList<>();
+      }
+      try {
+        return scanUnlessCached(file, urlScanner, rulePack, content, cache);
+      } finally {
+        content.release();
+      }
     }
-    // JCV END
-    */
-    
 
-    public List<ErrorDataFromExternalLinter> scanForUrls(final InputFile inputFile, List<String> whitelistLines) {
-      final String regex = ".*https?://.*";
-      final List<ErrorDataFromExternalLinter> issues = new ArrayList<>();
-      int lineNumber = 0;
-      LOGGER.info("JCV FooLintAnalysisResultsParser.scanForUrls() 1");
-      File file = inputFile.file();
-      try (Scanner sc = new Scanner(file, StandardCharsets.UTF_8.name())) {
-        while (sc.hasNextLine()) {
-          lineNumber++;
-          final String text = sc.nextLine();
-          final boolean matches = Pattern.matches(regex, text);
-          String filePath = inputFile.relativePath();
-          if (matches) {
-            LOGGER.info(filePath + ":" + lineNumber + "(matches) " + text);
-            boolean matchesWhitelistLine = false;
-            for(String whitelistLine: whitelistLines) {
-              String whitelistLineRegex = ".*" + whitelistLine + ".*";
-              matchesWhitelistLine = Pattern.matches(whitelistLineRegex, text);
-              if(matchesWhitelistLine){
-                LOGGER.info("JCV line matches whitelisted URL");
-                break;
-              }
-            }
-            if(!matchesWhitelistLine){
-              LOGGER.info("Line added");
-              issues.add(new ErrorDataFromExternalLinter("foundURL", "Unexpected URL was found in code",
-              filePath , lineNumber));
-            }
-            else{
-              LOGGER.info("Line NOT added");
-            }
-            //LOGGER.info(text);
-          }
+    /**
+     * The cache, if any, is looked up with the hash of the content already loaded, so that a file is read once
+     * whether its findings are cached or not. Files larger than {@value CandidateLineReader#CHUNK_THRESHOLD} bytes
+     * are read while scanned and are not cached, as hashing them would read them twice.
+     */
+    public List<ErrorDataFromExternalLinter> scanUnlessCached(final FileToScan file, final UrlScanner urlScanner,
+        final LineRulePack rulePack, final CandidateLineReader.Content content, final FooLintScanCache cache) {
+      final String hash = cache != null && content.bytes != null
+        ? FooLintScanCache.contentHash(content.bytes, file.charset)
+        : null;
+      if (hash != null) {
+        final List<ErrorDataFromExternalLinter> cached = cache.get(file.relativePath, hash);
+        if (cached != null) {
+          return cached;
         }
+      }
+      final List<ErrorDataFromExternalLinter> errors;
+      try {
+        errors = scanFile(file, urlScanner, rulePack, content);
       } catch (final IOException e) {
-        e.printStackTrace();
+        unreadable(file, e);
+        return new ArrayList<>();
+      }
+      if (hash != null) {
+        cache.put(file.relativePath, hash, errors);
+      }
+      return errors;
+    }
 
+    /**
+     * Reads the file once for the URL check and all the line rules. Only the lines which may contain
+     * an URL are decoded when there are no line rules.
+     */
+    public List<ErrorDataFromExternalLinter> scanFile(final FileToScan file, final UrlScanner urlScanner,
+        final LineRulePack rulePack, final CandidateLineReader.Content content) throws IOException {
+      final List<ErrorDataFromExternalLinter> issues = new ArrayList<>();
+      final String filePath = file.relativePath;
+      final CandidateLineReader.LineConsumer lineScanner = (lineNumber, text) -> {
+        if (urlScanner != null) {
+          scanForUrls(urlScanner, filePath, lineNumber, text, issues);
+        }
+        rulePack.scan(filePath, lineNumber, text, issues);
+      };
+      // large files are read while scanned
+      final CandidateLineReader.Result result =
+        CandidateLineReader.scan(content, file.charset, !rulePack.isEmpty(), lineScanner);
+      if (result.outcome == CandidateLineReader.Outcome.SCANNED) {
+        diagnostics.increment(Counter.FILES_SCANNED);
+        diagnostics.add(Counter.LINES_SCANNED, result.lines);
+        diagnostics.add(Counter.BYTES_READ, result.bytes);
+      } else {
+        diagnostics.debug("Skipped {} file {}", result.outcome, filePath);
+        diagnostics.increment(Counter.FILES_SKIPPED);
+        diagnostics.add(Counter.BYTES_SKIPPED, result.bytes);
       }
-      LOGGER.info("JCV FooLintAnalysisResultsParser.scanForUrls() 2");
       return issues;
     }
 
+    private void scanForUrls(final UrlScanner urlScanner, final String filePath, final int lineNumber, final String text,
+        final List<ErrorDataFromExternalLinter> issues) {
+      final int issuesBefore = issues.size();
+      final int urls = urlScanner.findUnexpectedUrls(text, (start, end) -> {
+        diagnostics.trace("{}:{} {}", filePath, lineNumber, text.substring(start, end));
+        issues.add(new ErrorDataFromExternalLinter(URL_RULE_KEY, "Unexpected URL was found in code",
+          filePath, lineNumber, start, end));
+      });
+      if (urls > 0) {
+        diagnostics.increment(Counter.URL_LINES);
+        diagnostics.add(Counter.URLS, urls);
+        diagnostics.add(Counter.WHITELISTED_URLS, urls - (issues.size() - issuesBefore));
+      }
+    }
+
   }
 
 }
@@ -0,0 +1,357 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Findings of previous scans, addressed by the hash of the file content and of the fingerprint of
+ * the scanning configuration (whitelist, active rules, format version). The store is a directory
+ * shared by all the analyses running on the machine, whatever their project or branch, so that a
+ * file already scanned by another analysis is not read again.
+ * <p>
+ * Each entry is a file named after its hash, in the compact format of {@link CachedFindings}, written to a temporary file then atomically moved,
+ * so that entries can be read by other scanner JVMs without locking. The last use of an entry is
+ * its modification time. The size of the store is estimated in the lock file, each analysis adding
+ * the size of the entries it wrote. Only once the estimate exceeds the maximum size, the store is
+ * walked to delete the least recently used entries, and the estimate is set to the exact size. The
+ * lock file is locked meanwhile, so that a single JVM updates the estimate or evicts at a time.
+ * Lookups and insertions can be done concurrently from the scanner threads.
+ */
+final class FooLintScanCache {
+
+  private static final Logger LOGGER = Loggers.get(FooLintScanCache.class);
+
+  static final String LOCK_FILENAME = ".lock";
+  private static final String ENTRY_SUFFIX = ".bin";
+  private static final String TMP_SUFFIX = ".tmp";
+
+  // to be incremented each time the scanning logic changes, the format of the entries being versioned by CachedFindings
+  private static final int VERSION = 5;
+
+  // eviction goes below the maximum size, so that it is not needed again by the next analysis
+  private static final double EVICTION_TARGET_RATIO = 0.8;
+  // the modification time of the entries is not updated on each use, to save writes
+  private static final long TOUCH_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+  // temporary files left by a killed JVM
+  private static final long STALE_TMP_MS = TimeUnit.HOURS.toMillis(1);
+
+  private final Path directory;
+  private final String fingerprint;
+  private final long maxBytes;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger writes = new AtomicInteger();
+  private final AtomicLong bytesWritten = new AtomicLong();
+
+  private FooLintScanCache(Path directory, String fingerprint, long maxBytes) {
+    this.directory = directory;
+    this.fingerprint = fingerprint;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Nothing is read until files are looked up, the directory being created on the first insertion.
+   */
+  static FooLintScanCache open(Path directory, String fingerprint, long maxBytes) {
+    return new FooLintScanCache(directory, fingerprint, maxBytes);
+  }
+
+  /**
+   * Returns the findings of a previous scan of the same content, else null.
+   *
+   * @param path relative path of the file, given to the returned findings
+   */
+  List<ErrorDataFromExternalLinter> get(String path, String hash) {
+    Path file = entryFile(hash);
+    List<ErrorDataFromExternalLinter> errors;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      errors = CachedFindings.read(readEntry(channel), path);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      // truncated by a crash or evicted while being read
+      LOGGER.debug("Unable to read FooLint cache entry {}: {}", file, e.getMessage());
+      return null;
+    }
+    if (errors != null) {
+      touch(file);
+      hits.incrementAndGet();
+    }
+    return errors;
+  }
+
+  /**
+   * Entries are read in the heap, as mapped files can't be unmapped with the Java 8 API.
+   */
+  private static ByteBuffer readEntry(FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Entry is too large: " + size + " bytes");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) size);
+    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+      // read until end of file
+    }
+    // Buffer methods are called through Buffer, as the ByteBuffer overrides of Java 9+ do not exist on Java 8
+    ((Buffer) buffer).flip();
+    return buffer;
+  }
+
+  private static void touch(Path file) {
+    try {
+      long now = System.currentTimeMillis();
+      if (now - Files.getLastModifiedTime(file).toMillis() > TOUCH_INTERVAL_MS) {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+      }
+    } catch (IOException e) {
+      // evicted meanwhile
+    }
+  }
+
+  /**
+   * Failures are logged but do not fail the analysis.
+   */
+  void put(String path, String hash, List<ErrorDataFromExternalLinter> errors) {
+    Path file = entryFile(hash);
+    if (Files.exists(file)) {
+      // written by a concurrent analysis of the same content
+      return;
+    }
+    Path tmp = null;
+    try {
+      Files.createDirectories(file.getParent());
+      tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), TMP_SUFFIX);
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        CachedFindings.write(errors, out);
+      }
+      long size = Files.size(tmp);
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+      tmp = null;
+      writes.incrementAndGet();
+      bytesWritten.addAndGet(size);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to write FooLint cache entry of {}: {}", path, e.getMessage());
+    } finally {
+      deleteQuietly(tmp);
+    }
+  }
+
+  int hits() {
+    return hits.get();
+  }
+
+  int writes() {
+    return writes.get();
+  }
+
+  /**
+   * Adds the size of the entries written by this analysis to the estimated size of the store, and deletes
+   * the least recently used entries if the estimate exceeds the maximum size. Skipped when this analysis
+   * did not add any entry. Failures are logged but do not fail the analysis.
+   */
+  void evict() {
+    if (writes.get() == 0 || !Files.isDirectory(directory)) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILENAME), StandardOpenOption.CREATE,
+      StandardOpenOption.READ, StandardOpenOption.WRITE);
+      FileLock lock = channel.lock()) {
+      long estimate = readEstimate(channel);
+      if (estimate >= 0 && estimate + bytesWritten.get() <= maxBytes) {
+        writeEstimate(channel, estimate + bytesWritten.get());
+      } else {
+        // unknown in a new store, or in a store of a previous version of the plugin
+        writeEstimate(channel, evictLocked());
+      }
+    } catch (OverlappingFileLockException e) {
+      // held by a concurrent analysis of this JVM, the entries of this analysis are counted by the next walk
+      LOGGER.debug("FooLint cache is being evicted by another analysis");
+    } catch (IOException | UncheckedIOException e) {
+      LOGGER.warn("Unable to evict FooLint cache " + directory, e);
+    }
+  }
+
+  /**
+   * Returns -1 when not known.
+   */
+  private static long readEstimate(FileChannel channel) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+    while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+      // read until end of file
+    }
+    return buffer.hasRemaining() ? -1 : buffer.getLong(0);
+  }
+
+  private static void writeEstimate(FileChannel channel, long estimate) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+    buffer.putLong(0, estimate);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, buffer.position());
+    }
+  }
+
+  /**
+   * Returns the size of the store after eviction.
+   */
+  private long evictLocked() throws IOException {
+    List<StoredFile> entries = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    long total = 0;
+    for (StoredFile stored : listStoredFiles()) {
+      if (stored.path.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+        entries.add(stored);
+        total += stored.size;
+      } else if (stored.path.getFileName().toString().endsWith(TMP_SUFFIX) && now - stored.lastModified > STALE_TMP_MS) {
+        deleteQuietly(stored.path);
+      }
+    }
+    if (total <= maxBytes) {
+      return total;
+    }
+    entries.sort(Comparator.comparingLong(stored -> stored.lastModified));
+    long target = (long) (maxBytes * EVICTION_TARGET_RATIO);
+    int evicted = 0;
+    for (StoredFile entry : entries) {
+      if (total <= target) {
+        break;
+      }
+      if (deleteQuietly(entry.path)) {
+        total -= entry.size;
+        evicted++;
+      }
+    }
+    LOGGER.info("FooLint cache: {} least recently used entries evicted", evicted);
+    return total;
+  }
+
+  private List<StoredFile> listStoredFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(directory, 2)) {
+      return files
+        .filter(file -> !file.equals(directory) && !file.getFileName().toString().equals(LOCK_FILENAME))
+        .map(StoredFile::of)
+        .filter(stored -> stored != null)
+        .collect(Collectors.toList());
+    }
+  }
+
+  private static boolean deleteQuietly(Path file) {
+    if (file == null) {
+      return false;
+    }
+    try {
+      return Files.deleteIfExists(file);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Entries are spread in 256 sub-directories, named after the first two characters of the hash.
+   */
+  Path entryFile(String hash) {
+    MessageDigest digest = newDigest("SHA-256");
+    digest.update(fingerprint.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) '\n');
+    digest.update(hash.getBytes(StandardCharsets.UTF_8));
+    String key = String.format("%064x", new BigInteger(1, digest.digest()));
+    return directory.resolve(key.substring(0, 2)).resolve(key.substring(2) + ENTRY_SUFFIX);
+  }
+
+  /**
+   * MD5 of the file content already loaded, followed by the charset used to decode the content.
+   */
+  static String contentHash(ByteBuffer bytes, Charset charset) {
+    MessageDigest digest = newDigest("MD5");
+    digest.update(bytes.duplicate());
+    return new BigInteger(1, digest.digest()).toString(16) + ":" + charset.name();
+  }
+
+  static String fingerprint(Iterable<String> values) {
+    MessageDigest digest = newDigest("SHA-256");
+    // entries of another format have other hashes, rather than being read as misses and never replaced
+    digest.update((VERSION + "." + CachedFindings.VERSION).getBytes(StandardCharsets.UTF_8));
+    for (String value : values) {
+      digest.update((byte) '\n');
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    return new BigInteger(1, digest.digest()).toString(16);
+  }
+
+  private static MessageDigest newDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Missing digest algorithm " + algorithm, e);
+    }
+  }
+
+  private static class StoredFile {
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+
+    private StoredFile(Path path, long size, long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns null for directories, or files deleted meanwhile.
+     */
+    private static StoredFile of(Path path) {
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return attributes.isRegularFile() ? new StoredFile(path, attributes.size(), attributes.lastModifiedTime().toMillis()) : null;
+      } catch (IOException e) {
+        return null;
+      }
+    }
+  }
+}
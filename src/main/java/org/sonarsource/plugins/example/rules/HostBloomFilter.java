@@ -0,0 +1,75 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+/**
+ * Bloom filter over the {@link String#hashCode()} of hostnames, with about 1% of false positives.
+ * Taking the hash code rather than the string lets the caller compute the hash of each parent domain
+ * of a host without allocating its substring, which is only done when the filter says it may be
+ * whitelisted.
+ */
+final class HostBloomFilter {
+
+  private static final int BITS_PER_ENTRY = 10;
+  private static final int HASH_FUNCTIONS = 7;
+
+  private final long[] bits;
+  private final int size;
+
+  HostBloomFilter(int expectedEntries) {
+    int words = Math.max(1, (expectedEntries * BITS_PER_ENTRY + 63) / 64);
+    this.bits = new long[words];
+    this.size = words * 64;
+  }
+
+  void add(int hashCode) {
+    int h1 = hashCode;
+    int h2 = secondHash(hashCode);
+    for (int i = 0; i < HASH_FUNCTIONS; i++) {
+      int bit = Math.floorMod(h1 + i * h2, size);
+      bits[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  boolean mightContain(int hashCode) {
+    int h1 = hashCode;
+    int h2 = secondHash(hashCode);
+    for (int i = 0; i < HASH_FUNCTIONS; i++) {
+      int bit = Math.floorMod(h1 + i * h2, size);
+      if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finalization step of MurmurHash3, so that the probes of close hash codes are spread.
+   */
+  private static int secondHash(int hashCode) {
+    int h = hashCode;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h | 1;
+  }
+}
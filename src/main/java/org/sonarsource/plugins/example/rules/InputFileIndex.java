@@ -0,0 +1,113 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Resolves the paths reported by FooLint to main {@link InputFile}s with a single hash lookup,
+ * instead of evaluating file predicates for each issue. The index is built on first use.
+ * Paths which can't be resolved are remembered, so that they are looked up and logged only once.
+ */
+final class InputFileIndex {
+
+  private final FileSystem fileSystem;
+  private final FooLintDiagnostics diagnostics;
+  private Map<String, InputFile> filesByPath;
+  // paths as written in the report, to skip normalization on the next issues of the same file
+  private final Map<String, InputFile> filesByReportedPath = new HashMap<>();
+  private final Set<String> missingPaths = new HashSet<>();
+
+  InputFileIndex(FileSystem fileSystem, FooLintDiagnostics diagnostics) {
+    this.fileSystem = fileSystem;
+    this.diagnostics = diagnostics;
+  }
+
+  /**
+   * Returns null if the path does not match any main file of the project.
+   */
+  InputFile get(String path) {
+    InputFile inputFile = filesByReportedPath.get(path);
+    if (inputFile != null || missingPaths.contains(path)) {
+      return inputFile;
+    }
+    if (filesByPath == null) {
+      filesByPath = index(fileSystem);
+    }
+    inputFile = filesByPath.get(normalize(path));
+    if (inputFile == null) {
+      missingPaths.add(path);
+      // counted by the sensor, which warns once about all the missing paths
+      diagnostics.debug("Not able to find a InputFile with {}", path);
+    } else {
+      filesByReportedPath.put(path, inputFile);
+    }
+    return inputFile;
+  }
+
+  int missingPaths() {
+    return missingPaths.size();
+  }
+
+  private static Map<String, InputFile> index(FileSystem fileSystem) {
+    Map<String, InputFile> files = new HashMap<>();
+    Path baseDir = baseDir(fileSystem);
+    for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().hasType(InputFile.Type.MAIN))) {
+      Path path = Paths.get(inputFile.uri());
+      files.put(normalize(relativePath(baseDir, path)), inputFile);
+      // reports may also refer to files with their absolute path
+      files.put(normalize(path.toString()), inputFile);
+    }
+    return files;
+  }
+
+  static Path baseDir(FileSystem fileSystem) {
+    return fileSystem.baseDir().toPath().toAbsolutePath().normalize();
+  }
+
+  /**
+   * Path of a file relative to the base directory of the project, with '/' separators, in place of the
+   * deprecated {@link InputFile#relativePath()}.
+   */
+  static String relativePath(Path baseDir, Path path) {
+    return baseDir.relativize(path).toString().replace('\\', '/');
+  }
+
+  /**
+   * Same separators and no redundant "." or ".." segments, whatever the OS the report
+   * was generated on.
+   */
+  static String normalize(String path) {
+    String normalized = path.trim().replace('\\', '/');
+    try {
+      return Paths.get(normalized).normalize().toString().replace('\\', '/');
+    } catch (InvalidPathException e) {
+      return normalized;
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.issue.NewIssue;
+import org.sonar.api.batch.sensor.issue.NewIssueLocation;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.plugins.example.rules.FooLintDiagnostics.Counter;
+
+/**
+ * Saves the FooLint issues. Issues of each file are deduplicated by rule, location and message,
+ * and limited to a maximum number, so that a pathological generated file can't flood the analysis
+ * report. The issues of a file do not need to be consecutive: the errors of the report and the
+ * findings of the scan of the same file are deduplicated and limited together. Only the keys of
+ * the issues saved are remembered, so that memory is bounded by the limit. Rule keys are created
+ * once per analysis, and line ranges once per run of consecutive issues of the same file.
+ * Must be used from the sensor thread only, as {@link SensorContext} is not thread-safe.
+ */
+final class IssueEmitter {
+
+  private static final Logger LOGGER = Loggers.get(IssueEmitter.class);
+
+  private final SensorContext context;
+  private final int maxIssuesPerFile;
+  private final FooLintDiagnostics diagnostics;
+  private final Map<String, RuleKey> ruleKeys = new HashMap<>();
+
+  private final Map<InputFile, FileIssues> issuesByFile = new HashMap<>();
+
+  private InputFile currentFile;
+  private final Map<Integer, TextRange> currentLines = new HashMap<>();
+
+  IssueEmitter(SensorContext context, int maxIssuesPerFile, FooLintDiagnostics diagnostics) {
+    this.context = context;
+    this.maxIssuesPerFile = maxIssuesPerFile;
+    this.diagnostics = diagnostics;
+  }
+
+  void emitAll(InputFile inputFile, List<ErrorDataFromExternalLinter> errors) {
+    for (ErrorDataFromExternalLinter error : errors) {
+      emit(inputFile, error);
+    }
+  }
+
+  void emit(InputFile inputFile, ErrorDataFromExternalLinter error) {
+    if (!inputFile.equals(currentFile)) {
+      currentFile = inputFile;
+      currentLines.clear();
+    }
+    final FileIssues issues = issuesByFile.computeIfAbsent(inputFile, f -> new FileIssues());
+    final IssueKey key = new IssueKey(error);
+    if (issues.saved.size() >= maxIssuesPerFile) {
+      if (issues.saved.contains(key)) {
+        diagnostics.increment(Counter.DUPLICATE_ISSUES);
+        return;
+      }
+      if (!issues.overLimit) {
+        issues.overLimit = true;
+        LOGGER.warn("More than {} FooLint issues on {}, next ones are ignored", maxIssuesPerFile, inputFile);
+      }
+      diagnostics.increment(Counter.ISSUES_OVER_LIMIT);
+      return;
+    }
+    if (!issues.saved.add(key)) {
+      diagnostics.increment(Counter.DUPLICATE_ISSUES);
+      return;
+    }
+    diagnostics.debug("Saving {}", error);
+    saveIssue(inputFile, error);
+    diagnostics.increment(Counter.ISSUES_SAVED);
+  }
+
+  private void saveIssue(InputFile inputFile, ErrorDataFromExternalLinter error) {
+    final NewIssue newIssue = context.newIssue().forRule(ruleKey(error.getType()));
+    final NewIssueLocation primaryLocation = newIssue.newLocation().on(inputFile).message(error.getDescription());
+    if (error.getLine() > 0 && error.hasColumns()) {
+      primaryLocation.at(inputFile.newRange(error.getLine(), error.getStartColumn(), error.getLine(), error.getEndColumn()));
+    } else if (error.getLine() > 0) {
+      primaryLocation.at(currentLines.computeIfAbsent(error.getLine(), inputFile::selectLine));
+    }
+    newIssue.at(primaryLocation);
+    newIssue.save();
+  }
+
+  private RuleKey ruleKey(String rule) {
+    // rules of all the files, whatever their language, are defined in the FooLint repository
+    return ruleKeys.computeIfAbsent(rule, r -> RuleKey.of(FooLintRulesDefinition.REPO_KEY, r));
+  }
+
+  private static final class FileIssues {
+    private final Set<IssueKey> saved = new HashSet<>();
+    private boolean overLimit;
+  }
+
+  private static final class IssueKey {
+    private final String rule;
+    private final int line;
+    private final int startColumn;
+    private final int endColumn;
+    private final String message;
+
+    private IssueKey(ErrorDataFromExternalLinter error) {
+      this.rule = error.getType();
+      this.line = error.getLine();
+      this.startColumn = error.getStartColumn();
+      this.endColumn = error.getEndColumn();
+      this.message = error.getDescription();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      IssueKey other = (IssueKey) o;
+      return line == other.line && startColumn == other.startColumn && endColumn == other.endColumn
+        && rule.equals(other.rule) && Objects.equals(message, other.message);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(rule, line, startColumn, endColumn, message);
+    }
+  }
+}
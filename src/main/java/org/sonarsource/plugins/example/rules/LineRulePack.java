@@ -0,0 +1,152 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.sonar.api.batch.rule.ActiveRule;
+
+/**
+ * The active FooLint rules which check each line of a file, for the rules declared in
+ * foolint-rules.xml with a {@value #PATTERN_PARAM} or {@value #LITERAL_PARAM} parameter.
+ * All rules are compiled into a single alternation, so that a line without any issue is
+ * matched only once whatever the number of rules. Each rule is matched separately only
+ * on the lines matched by the alternation. The alternation is not used when a rule has a numbered
+ * back-reference, which would refer to another group once combined, or when the rules declare the same
+ * group name twice.
+ * Immutable, so it can be used concurrently by the scanner threads.
+ */
+final class LineRulePack {
+
+  static final String PATTERN_PARAM = "pattern";
+  static final String LITERAL_PARAM = "literal";
+  static final String MESSAGE_PARAM = "message";
+
+  private static final Pattern NUMBERED_BACK_REFERENCE = Pattern.compile("(?<!\\\\)\\\\[1-9]");
+
+  private final List<LineRule> rules;
+  // null when the rules can't be combined, each rule is then matched on each line
+  private final Pattern combined;
+
+  private LineRulePack(List<LineRule> rules) {
+    this.rules = rules;
+    this.combined = combine(rules);
+  }
+
+  private static Pattern combine(List<LineRule> rules) {
+    StringBuilder alternation = new StringBuilder();
+    for (LineRule rule : rules) {
+      if (NUMBERED_BACK_REFERENCE.matcher(rule.pattern.pattern()).find()) {
+        return null;
+      }
+      if (alternation.length() > 0) {
+        alternation.append('|');
+      }
+      alternation.append("(?:").append(rule.pattern.pattern()).append(')');
+    }
+    try {
+      return Pattern.compile(alternation.toString());
+    } catch (PatternSyntaxException e) {
+      return null;
+    }
+  }
+
+  static LineRulePack compile(Collection<ActiveRule> activeRules) {
+    List<LineRule> rules = new ArrayList<>();
+    for (ActiveRule activeRule : activeRules) {
+      String regex = activeRule.param(PATTERN_PARAM);
+      String literal = activeRule.param(LITERAL_PARAM);
+      Pattern pattern;
+      String definition;
+      if (regex != null && !regex.isEmpty()) {
+        definition = regex;
+        try {
+          pattern = Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+          throw new IllegalStateException("Invalid pattern of FooLint rule " + activeRule.ruleKey(), e);
+        }
+      } else if (literal != null && !literal.isEmpty()) {
+        definition = literal;
+        pattern = Pattern.compile(Pattern.quote(literal));
+      } else {
+        // issues of this rule only come from the FooLint report
+        continue;
+      }
+      String message = activeRule.param(MESSAGE_PARAM);
+      rules.add(new LineRule(activeRule.ruleKey().rule(), pattern, message == null ? ("Line matches '" + definition + "'") : message));
+    }
+    return new LineRulePack(rules);
+  }
+
+  boolean isEmpty() {
+    return rules.isEmpty();
+  }
+
+  /**
+   * Whether lines are matched by the alternation of all the rules before each rule.
+   */
+  boolean isCombined() {
+    return combined != null;
+  }
+
+  /**
+   * Rule keys with their pattern and message, which change the findings when they change.
+   */
+  List<String> fingerprint() {
+    List<String> fingerprint = new ArrayList<>();
+    for (LineRule rule : rules) {
+      fingerprint.add(rule.key + "=" + rule.pattern.pattern() + "|" + rule.message);
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Adds an issue for the first match of each rule on the line.
+   */
+  void scan(String filePath, int lineNumber, String line, List<ErrorDataFromExternalLinter> issues) {
+    if (combined != null && !combined.matcher(line).find()) {
+      return;
+    }
+    for (LineRule rule : rules) {
+      Matcher matcher = rule.pattern.matcher(line);
+      if (matcher.find()) {
+        // an empty match has no columns, it is reported on the whole line
+        issues.add(new ErrorDataFromExternalLinter(rule.key, rule.message, filePath, lineNumber, matcher.start(),
+          matcher.end()));
+      }
+    }
+  }
+
+  private static class LineRule {
+    private final String key;
+    private final Pattern pattern;
+    private final String message;
+
+    private LineRule(String key, Pattern pattern, String message) {
+      this.key = key;
+      this.pattern = pattern;
+      this.message = message;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.util.List;
+
+/**
+ * Detects URLs which are not whitelisted.
+ * It is built once per analysis, with the whitelist compiled into a {@link UrlWhitelist}.
+ * URLs are searched in lines with a plain search of the "http" scheme, without regular
+ * expressions, and the whitelist is only evaluated on the extracted URLs.
+ */
+final class UrlScanner {
+
+  interface UrlConsumer {
+    /**
+     * Offsets of the URL in the line, the end being exclusive.
+     */
+    void accept(int start, int end);
+  }
+
+  private static final String SCHEME = "http";
+  private static final String SCHEME_SEPARATOR = "://";
+  // characters allowed in URLs by RFC 3986, except the single quote which usually delimits strings
+  private static final String URL_PUNCTUATION = "-._~:/?#[]@!$&()*+,;=%";
+  // characters which usually end a sentence rather than an URL
+  private static final String TRAILING_PUNCTUATION = ".,;:!?";
+
+  private final UrlWhitelist whitelist;
+
+  UrlScanner(List<String> whitelistLines) {
+    this.whitelist = new UrlWhitelist(whitelistLines);
+  }
+
+  /**
+   * Index of the first URL starting at or after {@code from}, or -1.
+   */
+  static int indexOfUrl(String text, int from) {
+    int index = text.indexOf(SCHEME, from);
+    while (index >= 0) {
+      int next = index + SCHEME.length();
+      if (next < text.length() && text.charAt(next) == 's') {
+        next++;
+      }
+      if (text.startsWith(SCHEME_SEPARATOR, next)) {
+        return index;
+      }
+      index = text.indexOf(SCHEME, index + 1);
+    }
+    return -1;
+  }
+
+  /**
+   * Index following the last character of the URL starting at {@code start}.
+   * Trailing punctuation is left out, as well as closing parentheses without an opening one in the URL,
+   * like in "(see http://example.com)". The parentheses are counted once, and the count is updated while
+   * trimming, so that the cost stays linear in the length of the URL.
+   */
+  static int endOfUrl(String text, int start) {
+    int end = text.indexOf(SCHEME_SEPARATOR, start) + SCHEME_SEPARATOR.length();
+    // number of opening parentheses minus closing ones
+    int balance = 0;
+    while (end < text.length() && isUrlCharacter(text.charAt(end))) {
+      char c = text.charAt(end);
+      if (c == '(') {
+        balance++;
+      } else if (c == ')') {
+        balance--;
+      }
+      end++;
+    }
+    while (true) {
+      char last = text.charAt(end - 1);
+      if (last == ')' && balance < 0) {
+        balance++;
+      } else if (TRAILING_PUNCTUATION.indexOf(last) < 0) {
+        return end;
+      }
+      end--;
+    }
+  }
+
+  private static boolean isUrlCharacter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || URL_PUNCTUATION.indexOf(c) >= 0;
+  }
+
+  /**
+   * Gives each URL of the text which is not whitelisted to the consumer, in a single pass
+   * over the text. Returns the number of URLs found, whitelisted or not.
+   */
+  int findUnexpectedUrls(String text, UrlConsumer consumer) {
+    int urls = 0;
+    int start = indexOfUrl(text, 0);
+    while (start >= 0) {
+      int end = endOfUrl(text, start);
+      urls++;
+      if (!whitelist.isWhitelisted(text.substring(start, end))) {
+        consumer.accept(start, end);
+      }
+      start = indexOfUrl(text, end);
+    }
+    return urls;
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Whitelist of URLs, compiled from the entries of the property {@code sonar.foo.url.whitelist}.
+ * Most entries are hostnames or URL prefixes: they are looked up in a hash set or walked in a
+ * prefix trie, so that their cost does not depend on the size of the whitelist. Only the entries
+ * which are real regular expressions are evaluated, as a single alternation.
+ * <ul>
+ *   <li>hostname with at least one dot, like {@code example.com}: the URL host or one of its parent domains
+ *   is equal to it</li>
+ *   <li>URL prefix, like {@code https://example.com/api/}: the URL starts with it</li>
+ *   <li>any other regular expression: it matches a part of the URL</li>
+ * </ul>
+ * Dots of hostnames and prefixes can be escaped or not.
+ * With many hostnames, a Bloom filter is consulted before the hash set, so that most of the
+ * parent domains of a URL host are rejected without being extracted as strings.
+ */
+final class UrlWhitelist {
+
+  // below, the hash set alone is as fast as the filter
+  static final int BLOOM_FILTER_MIN_HOSTS = 256;
+
+  private static final Pattern HOST = Pattern.compile("[A-Za-z0-9-]+(?:\\\\?\\.[A-Za-z0-9-]+)+");
+  private static final Pattern PREFIX = Pattern.compile("https?://(?:[^\\\\^$|?*+()\\[\\]{}\\s]|\\\\\\.)+");
+
+  private final Set<String> hosts = new HashSet<>();
+  // null when there are too few hostnames
+  private final HostBloomFilter hostFilter;
+  private final PrefixTrie prefixes = new PrefixTrie();
+  // null when there is no regular expression entries
+  private final Pattern patterns;
+
+  UrlWhitelist(List<String> entries) {
+    List<String> alternatives = new ArrayList<>();
+    for (String entry : entries) {
+      String trimmed = entry.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      if (HOST.matcher(trimmed).matches()) {
+        hosts.add(unescapeDots(trimmed).toLowerCase(Locale.ENGLISH));
+      } else if (PREFIX.matcher(trimmed).matches()) {
+        prefixes.add(unescapeDots(trimmed));
+      } else {
+        alternatives.add("(?:" + trimmed + ")");
+      }
+    }
+    this.patterns = alternatives.isEmpty() ? null : Pattern.compile(String.join("|", alternatives));
+    if (hosts.size() >= BLOOM_FILTER_MIN_HOSTS) {
+      hostFilter = new HostBloomFilter(hosts.size());
+      for (String host : hosts) {
+        hostFilter.add(host.hashCode());
+      }
+    } else {
+      hostFilter = null;
+    }
+  }
+
+  boolean isWhitelisted(String url) {
+    return hasWhitelistedHost(url) || prefixes.isPrefixOf(url) || (patterns != null && patterns.matcher(url).find());
+  }
+
+  private boolean hasWhitelistedHost(String url) {
+    if (hosts.isEmpty()) {
+      return false;
+    }
+    String host = host(url);
+    if (hostFilter != null) {
+      return hasWhitelistedDomain(host);
+    }
+    while (true) {
+      if (hosts.contains(host)) {
+        return true;
+      }
+      int dot = host.indexOf('.');
+      if (dot < 0) {
+        return false;
+      }
+      host = host.substring(dot + 1);
+    }
+  }
+
+  /**
+   * Checks the host and its parent domains from the shortest to the longest. Their hash codes are
+   * computed from the end of the host, the same way as {@link String#hashCode()}.
+   */
+  private boolean hasWhitelistedDomain(String host) {
+    int hash = 0;
+    int power = 1;
+    for (int i = host.length() - 1; i >= -1; i--) {
+      if ((i < 0 || host.charAt(i) == '.') && i + 1 < host.length()
+        && hostFilter.mightContain(hash) && hosts.contains(host.substring(i + 1))) {
+        return true;
+      }
+      if (i >= 0) {
+        hash += host.charAt(i) * power;
+        power *= 31;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Host of an URL like "http://user@Host.com:8080/path", without user info nor port, in lower case.
+   */
+  static String host(String url) {
+    int start = url.indexOf("://") + "://".length();
+    int end = start;
+    while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+      end++;
+    }
+    String authority = url.substring(start, end);
+    authority = authority.substring(authority.lastIndexOf('@') + 1);
+    int port = authority.lastIndexOf(':');
+    if (port >= 0) {
+      authority = authority.substring(0, port);
+    }
+    return authority.toLowerCase(Locale.ENGLISH);
+  }
+
+  private static String unescapeDots(String entry) {
+    return entry.replace("\\.", ".");
+  }
+
+  private static class PrefixTrie {
+
+    private final Node root = new Node();
+
+    void add(String prefix) {
+      Node node = root;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+      }
+      node.terminal = true;
+    }
+
+    boolean isPrefixOf(String text) {
+      Node node = root;
+      for (int i = 0; i < text.length() && !node.children.isEmpty(); i++) {
+        node = node.children.get(text.charAt(i));
+        if (node == null) {
+          return false;
+        }
+        if (node.terminal) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private boolean terminal;
+  }
+}
@@ -40,7 +40,8 @@ public class FooLanguageProperties {
       .defaultValue(FILE_SUFFIXES_DEFAULT_VALUE)
       .category("Foo")
       .name("File Suffixes")
-      .description("Comma-separated list of suffixes for files to analyze.")
+      .description("Comma-separated list of suffixes for files to analyze. Values with a wildcard or a \"/\" are "
+        + "glob patterns, such as \"**/*.foo.txt\", which select files for FooLint only.")
       .onQualifiers(Qualifiers.PROJECT)
       .build());
   }
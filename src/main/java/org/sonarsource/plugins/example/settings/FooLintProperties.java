@@ -0,0 +1,146 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.settings;
+
+import java.util.List;
+import org.sonar.api.PropertyType;
+import org.sonar.api.config.PropertyDefinition;
+import org.sonar.api.resources.Qualifiers;
+
+import static java.util.Arrays.asList;
+
+public class FooLintProperties {
+
+  public static final String CATEGORY = "FooLint";
+
+  public static final String THREADS_KEY = "sonar.foo.scanner.threads";
+  public static final String ASYNC_IO_KEY = "sonar.foo.scanner.asyncIo";
+  public static final String IO_THREADS_KEY = "sonar.foo.scanner.ioThreads";
+  public static final int IO_THREADS_DEFAULT_VALUE = 16;
+  public static final String IO_BUDGET_KEY = "sonar.foo.scanner.ioBudget";
+  public static final int IO_BUDGET_DEFAULT_VALUE = 65536;
+  public static final String CACHE_PATH_KEY = "sonar.foo.cache.path";
+  public static final String CACHE_MAX_SIZE_KEY = "sonar.foo.cache.maxSize";
+  public static final int CACHE_MAX_SIZE_DEFAULT_VALUE = 0;
+  public static final String INCLUSIONS_KEY = "sonar.foo.scanner.inclusions";
+  public static final String EXCLUSIONS_KEY = "sonar.foo.scanner.exclusions";
+  public static final String MAX_FILE_SIZE_KEY = "sonar.foo.scanner.maxFileSize";
+  public static final int MAX_FILE_SIZE_DEFAULT_VALUE = 10240;
+  public static final String MAX_ISSUES_PER_FILE_KEY = "sonar.foo.issues.maxPerFile";
+  public static final int MAX_ISSUES_PER_FILE_DEFAULT_VALUE = 1000;
+  public static final String LOG_MAX_LINES_KEY = "sonar.foo.log.maxLines";
+  public static final int LOG_MAX_LINES_DEFAULT_VALUE = 1000;
+
+  private FooLintProperties() {
+    // only statics
+  }
+
+  public static List<PropertyDefinition> getProperties() {
+    return asList(
+      PropertyDefinition.builder(THREADS_KEY)
+        .name("Scanner Threads")
+        .description("Number of threads used to scan files for URLs. Defaults to the number of available processors. "
+          + "Set to 1 to scan files sequentially.")
+        .category(CATEGORY)
+        .type(PropertyType.INTEGER)
+        .build(),
+      PropertyDefinition.builder(ASYNC_IO_KEY)
+        .name("Asynchronous File Reading")
+        .description("Read many files concurrently, ahead of their scanning. Speeds up the analysis of projects "
+          + "checked out on a network filesystem. Files are read by virtual threads on Java 21 or later.")
+        .category(CATEGORY)
+        .type(PropertyType.BOOLEAN)
+        .defaultValue("false")
+        .build(),
+      PropertyDefinition.builder(IO_THREADS_KEY)
+        .name("File Reading Threads")
+        .description("Number of threads reading files when asynchronous file reading is enabled and virtual threads "
+          + "are not available.")
+        .category(CATEGORY)
+        .type(PropertyType.INTEGER)
+        .defaultValue(String.valueOf(IO_THREADS_DEFAULT_VALUE))
+        .build(),
+      PropertyDefinition.builder(IO_BUDGET_KEY)
+        .name("File Reading Budget")
+        .description("Maximum size, in kilobytes, of the files read and not yet scanned when asynchronous file reading "
+          + "is enabled.")
+        .category(CATEGORY)
+        .type(PropertyType.INTEGER)
+        .defaultValue(String.valueOf(IO_BUDGET_DEFAULT_VALUE))
+        .build(),
+      PropertyDefinition.builder(CACHE_PATH_KEY)
+        .name("Scan Cache Directory")
+        .description("Directory, absolute or relative to the project base directory, where FooLint keeps the findings "
+          + "of the scanned files so that the same content is not scanned again, whatever the project or branch. "
+          + "It can be shared by concurrent analyses on the same machine. It must survive between analyses, "
+          + "so it can't be the scanner working directory which is cleaned on each run. "
+          + "Defaults to cache/foolint in the SonarQube user home.")
+        .category(CATEGORY)
+        .build(),
+      PropertyDefinition.builder(CACHE_MAX_SIZE_KEY)
+        .name("Scan Cache Maximum Size")
+        .description("Size, in megabytes, above which the least recently used findings are deleted from the scan cache. "
+          + "The cache is disabled by default, or when set to 0: set a size, like 1024, to enable it.")
+        .category(CATEGORY)
+        .type(PropertyType.INTEGER)
+        .defaultValue(String.valueOf(CACHE_MAX_SIZE_DEFAULT_VALUE))
+        .build(),
+      PropertyDefinition.builder(INCLUSIONS_KEY)
+        .name("Additional Files to Scan")
+        .description("Comma-separated list of path patterns of files to scan for URLs in addition to the Foo files, "
+          + "like **/*.properties")
+        .category(CATEGORY)
+        .multiValues(true)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(EXCLUSIONS_KEY)
+        .name("Files Not to Scan")
+        .description("Comma-separated list of path patterns of files not to scan for URLs, like **/generated/**")
+        .category(CATEGORY)
+        .multiValues(true)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(MAX_FILE_SIZE_KEY)
+        .name("Maximum File Size")
+        .description("Files larger than this size, in kilobytes, are not scanned for URLs. "
+          + "Set to 0 to scan files of any size. Binary files are never scanned.")
+        .category(CATEGORY)
+        .type(PropertyType.INTEGER)
+        .defaultValue(String.valueOf(MAX_FILE_SIZE_DEFAULT_VALUE))
+        .build(),
+      PropertyDefinition.builder(MAX_ISSUES_PER_FILE_KEY)
+        .name("Maximum Issues per File")
+        .description("Maximum number of FooLint issues saved on a single file, so that a generated file can't flood "
+          + "the analysis report. Next issues of the file are counted and ignored.")
+        .category(CATEGORY)
+        .type(PropertyType.INTEGER)
+        .defaultValue(String.valueOf(MAX_ISSUES_PER_FILE_DEFAULT_VALUE))
+        .build(),
+      PropertyDefinition.builder(LOG_MAX_LINES_KEY)
+        .name("Maximum Diagnostic Log Lines")
+        .description("Maximum number of DEBUG/TRACE lines logged per analysis about scanned files, URLs and issues. "
+          + "A summary is always logged at INFO level.")
+        .category(CATEGORY)
+        .type(PropertyType.INTEGER)
+        .defaultValue(String.valueOf(LOG_MAX_LINES_DEFAULT_VALUE))
+        .build());
+  }
+
+}
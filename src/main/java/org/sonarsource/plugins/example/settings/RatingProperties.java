@@ -0,0 +1,51 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.settings;
+
+import java.util.List;
+import org.sonar.api.config.PropertyDefinition;
+import org.sonar.api.resources.Qualifiers;
+
+import static java.util.Arrays.asList;
+
+public class RatingProperties {
+
+  public static final String CATEGORY = "Ratings Example";
+
+  public static final String FILENAME_SIZE_THRESHOLDS_KEY = "sonar.example.rating.filenameSize.thresholds";
+  public static final String FILENAME_SIZE_THRESHOLDS_DEFAULT_VALUE = "20,30,40,50";
+
+  private RatingProperties() {
+    // only statics
+  }
+
+  public static List<PropertyDefinition> getProperties() {
+    return asList(
+      PropertyDefinition.builder(FILENAME_SIZE_THRESHOLDS_KEY)
+        .name("Filename Size Rating Thresholds")
+        .description("Comma-separated increasing filename sizes up to which the rating is A, B, C and D. "
+          + "Larger sizes are rated E. Invalid thresholds are replaced by the default ones.")
+        .defaultValue(FILENAME_SIZE_THRESHOLDS_DEFAULT_VALUE)
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build());
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.web;
+
+import org.sonar.api.server.ws.WebService;
+
+/**
+ * Web services used by the pages of the plugin, so that they get their data in one call
+ * instead of joining the responses of several SonarQube web services in the browser.
+ */
+public class ExampleWs implements WebService {
+
+  static final String CONTROLLER_PATH = "api/example";
+
+  private final VersionsMeasuresAction versionsMeasuresAction = new VersionsMeasuresAction();
+  private final InstanceStatisticsAction instanceStatisticsAction = new InstanceStatisticsAction();
+
+  @Override
+  public void define(Context context) {
+    NewController controller = context.createController(CONTROLLER_PATH)
+      .setDescription("Web services of the example plugin")
+      .setSince("8.1");
+    versionsMeasuresAction.define(controller);
+    instanceStatisticsAction.define(controller);
+    controller.done();
+  }
+}
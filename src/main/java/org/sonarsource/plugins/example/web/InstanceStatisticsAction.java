@@ -0,0 +1,161 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.web;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+
+/**
+ * Statistics of the admin page. Counting the issues of a large instance is expensive, so the
+ * statistics are computed at most once per {@link #TTL_MS} and reused, unless an analysis report
+ * was processed since then. They are always reused during {@link #MIN_TTL_MS}, so that the analyses
+ * of a busy instance do not trigger a computation on each request. The end of the analyses is checked
+ * in the Compute Engine activity, as a {@link org.sonar.api.ce.posttask.PostProjectAnalysisTask} runs
+ * in another process than the web server.
+ * Restricted to administrators, as the statistics are shared by all users.
+ */
+class InstanceStatisticsAction implements RequestHandler {
+
+  static final String ACTION = "instance_statistics";
+
+  static final long TTL_MS = TimeUnit.MINUTES.toMillis(10);
+  static final long MIN_TTL_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private Statistics cached;
+
+  void define(WebService.NewController controller) {
+    controller.createAction(ACTION)
+      .setDescription("Number of quality profiles, quality gates, issues and projects of the instance. "
+        + "Refreshed after each analysis, at most every minute, or every 10 minutes. "
+        + "Requires the 'Administer System' permission.")
+      .setSince("8.1")
+      .setInternal(true)
+      .setHandler(this);
+  }
+
+  @Override
+  public void handle(Request request, Response response) {
+    LocalWsClient ws = new LocalWsClient(request.localConnector());
+    if (!isAdministrator(ws)) {
+      writeForbidden(response);
+      return;
+    }
+    Statistics statistics = statistics(ws);
+    try (JsonWriter json = response.newJsonWriter()) {
+      json.beginObject()
+        .prop("qualityProfiles", statistics.qualityProfiles)
+        .prop("qualityGates", statistics.qualityGates)
+        .prop("issues", statistics.issues)
+        .prop("projects", statistics.projects)
+        .endObject();
+    }
+  }
+
+  /**
+   * Same status and body as the web services of SonarQube, whose ForbiddenException is not in the plugin API.
+   */
+  private static void writeForbidden(Response response) {
+    response.stream().setStatus(403);
+    try (JsonWriter json = response.newJsonWriter()) {
+      json.beginObject()
+        .name("errors").beginArray()
+        .beginObject().prop("msg", "Insufficient privileges").endObject()
+        .endArray()
+        .endObject();
+    }
+  }
+
+  private static boolean isAdministrator(LocalWsClient ws) {
+    JsonObject user = ws.get("api/users/current", Collections.emptyMap());
+    if (user.has("permissions")) {
+      for (JsonElement permission : user.getAsJsonObject("permissions").getAsJsonArray("global")) {
+        if ("admin".equals(permission.getAsString())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private synchronized Statistics statistics(LocalWsClient ws) {
+    long now = System.currentTimeMillis();
+    if (cached != null && now - cached.computedAt <= MIN_TTL_MS) {
+      return cached;
+    }
+    String lastAnalysisTask = lastAnalysisTask(ws);
+    if (cached == null || now - cached.computedAt > TTL_MS || !cached.lastAnalysisTask.equals(lastAnalysisTask)) {
+      cached = new Statistics(
+        ws.get("api/qualityprofiles/search", Collections.emptyMap()).getAsJsonArray("profiles").size(),
+        ws.get("api/qualitygates/list", Collections.emptyMap()).getAsJsonArray("qualitygates").size(),
+        total(ws, "api/issues/search"),
+        total(ws, "api/projects/search"),
+        lastAnalysisTask,
+        now);
+    }
+    return cached;
+  }
+
+  private static String lastAnalysisTask(LocalWsClient ws) {
+    Map<String, String> params = new HashMap<>();
+    params.put("type", "REPORT");
+    params.put("status", "SUCCESS");
+    params.put(WebService.Param.PAGE_SIZE, "1");
+    JsonArray tasks = ws.get("api/ce/activity", params).getAsJsonArray("tasks");
+    return tasks.size() == 0 ? "" : tasks.get(0).getAsJsonObject().get("id").getAsString();
+  }
+
+  /**
+   * Total of a paginated search, without loading more than one of its results.
+   */
+  private static long total(LocalWsClient ws, String path) {
+    Map<String, String> params = new HashMap<>();
+    params.put(WebService.Param.PAGE_SIZE, "1");
+    return ws.get(path, params).getAsJsonObject("paging").get("total").getAsLong();
+  }
+
+  private static class Statistics {
+    private final long qualityProfiles;
+    private final long qualityGates;
+    private final long issues;
+    private final long projects;
+    private final String lastAnalysisTask;
+    private final long computedAt;
+
+    private Statistics(long qualityProfiles, long qualityGates, long issues, long projects, String lastAnalysisTask,
+      long computedAt) {
+      this.qualityProfiles = qualityProfiles;
+      this.qualityGates = qualityGates;
+      this.issues = issues;
+      this.projects = projects;
+      this.lastAnalysisTask = lastAnalysisTask;
+      this.computedAt = computedAt;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.web;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.sonar.api.server.ws.LocalConnector;
+import org.sonar.api.server.ws.Response;
+
+/**
+ * Calls SonarQube web services in-process, with the permissions of the user of the current request.
+ */
+class LocalWsClient {
+
+  private static final String JSON = "application/json";
+
+  private final LocalConnector connector;
+
+  LocalWsClient(LocalConnector connector) {
+    this.connector = connector;
+  }
+
+  JsonObject get(String path, Map<String, String> params) {
+    LocalConnector.LocalResponse response = connector.call(new GetRequest(path, params));
+    if (response.getStatus() != 200) {
+      throw new CallException(path, response);
+    }
+    return JsonParser.parseString(new String(response.getBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+  }
+
+  /**
+   * Failure of a web service called, for instance because the user is not allowed to browse the project
+   * or because it does not exist, to be forwarded as is rather than failing with a server error.
+   */
+  static class CallException extends RuntimeException {
+    private final int status;
+    private final byte[] body;
+
+    private CallException(String path, LocalConnector.LocalResponse response) {
+      super("Web service " + path + " failed with status " + response.getStatus());
+      this.status = response.getStatus();
+      this.body = response.getBytes();
+    }
+
+    void writeTo(Response response) throws IOException {
+      Response.Stream stream = response.stream().setStatus(status).setMediaType(JSON);
+      stream.output().write(body);
+    }
+  }
+
+  private static class GetRequest implements LocalConnector.LocalRequest {
+    private final String path;
+    private final Map<String, String> params;
+
+    private GetRequest(String path, Map<String, String> params) {
+      this.path = path;
+      this.params = params;
+    }
+
+    @Override
+    public String getPath() {
+      return path;
+    }
+
+    @Override
+    public String getMediaType() {
+      return JSON;
+    }
+
+    @Override
+    public String getMethod() {
+      return "GET";
+    }
+
+    @Override
+    public boolean hasParam(String key) {
+      return params.containsKey(key);
+    }
+
+    @Override
+    public String getParam(String key) {
+      return params.get(key);
+    }
+
+    @Override
+    public List<String> getMultiParam(String key) {
+      String value = params.get(key);
+      return value == null ? Collections.emptyList() : Collections.singletonList(value);
+    }
+
+    @Override
+    public Optional<String> getHeader(String name) {
+      return Optional.empty();
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+      Map<String, String[]> map = new HashMap<>();
+      params.forEach((key, value) -> map.put(key, new String[] {value}));
+      return map;
+    }
+  }
+}
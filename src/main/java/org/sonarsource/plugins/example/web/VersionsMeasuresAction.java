@@ -0,0 +1,238 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.web;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+
+/**
+ * Measures of the portfolio page, for each analysis of a project or portfolio, most recent first.
+ * The analyses and the history of the measures are fetched once and joined by date, then kept in
+ * a cache which is used as long as the project has no new analysis. The cache can't be invalidated
+ * by a {@link org.sonar.api.ce.posttask.PostProjectAnalysisTask}, which runs in the Compute Engine
+ * and not in the web server, so the key of the last analysis is checked on each request instead.
+ */
+class VersionsMeasuresAction implements RequestHandler {
+
+  static final String ACTION = "versions_measures";
+  static final String PARAM_PROJECT = "project";
+
+  static final List<String> METRICS = Collections.unmodifiableList(Arrays.asList("alert_status", "bugs",
+    "vulnerabilities", "sqale_index", "reliability_rating", "security_rating", "sqale_rating"));
+  // values of the analyses without measure
+  private static final String[] DEFAULT_VALUES = {"", "0", "0", "0", "", "", ""};
+
+  private static final int DEFAULT_PAGE_SIZE = 100;
+  private static final int MAX_PAGE_SIZE = 500;
+  // maximum page sizes of the web services called
+  private static final int ANALYSES_PAGE_SIZE = 500;
+  private static final int HISTORY_PAGE_SIZE = 1000;
+  private static final int MAX_CACHED_PROJECTS = 200;
+
+  private final Map<String, CachedVersions> cache = new LinkedHashMap<String, CachedVersions>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedVersions> eldest) {
+      return size() > MAX_CACHED_PROJECTS;
+    }
+  };
+
+  void define(WebService.NewController controller) {
+    WebService.NewAction action = controller.createAction(ACTION)
+      .setDescription("Measures of the quality gate, reliability, security and maintainability of each analysis "
+        + "of a project or portfolio, most recent first. Requires the 'Browse' permission on it.")
+      .setSince("8.1")
+      .setInternal(true)
+      .setHandler(this)
+      .addPagingParams(DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+    action.createParam(PARAM_PROJECT)
+      .setDescription("Project or portfolio key")
+      .setRequired(true)
+      .setExampleValue("my_project");
+  }
+
+  @Override
+  public void handle(Request request, Response response) throws IOException {
+    String project = request.mandatoryParam(PARAM_PROJECT);
+    int page = request.mandatoryParamAsInt(WebService.Param.PAGE);
+    int pageSize = request.mandatoryParamAsInt(WebService.Param.PAGE_SIZE);
+    // rejected with a 400 rather than failing with a server error
+    if (page < 1) {
+      throw new IllegalArgumentException("'" + WebService.Param.PAGE + "' must be strictly greater than 0");
+    }
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("'" + WebService.Param.PAGE_SIZE + "' must be strictly greater than 0");
+    }
+    List<Version> versions;
+    try {
+      versions = versions(new LocalWsClient(request.localConnector()), project);
+    } catch (LocalWsClient.CallException e) {
+      // the status of the web services called, such as 403 or 404
+      e.writeTo(response);
+      return;
+    }
+
+    try (JsonWriter json = response.newJsonWriter()) {
+      json.beginObject();
+      json.name("paging").beginObject()
+        .prop("pageIndex", page)
+        .prop("pageSize", pageSize)
+        .prop("total", versions.size())
+        .endObject();
+      json.name("versions").beginArray();
+      int from = (int) Math.min(versions.size(), (long) (page - 1) * pageSize);
+      for (Version version : versions.subList(from, Math.min(versions.size(), from + pageSize))) {
+        json.beginObject();
+        json.prop("date", version.date);
+        json.prop("version", version.name);
+        for (int i = 0; i < METRICS.size(); i++) {
+          json.prop(METRICS.get(i), version.values[i]);
+        }
+        json.endObject();
+      }
+      json.endArray();
+      json.endObject();
+    }
+  }
+
+  private List<Version> versions(LocalWsClient ws, String project) {
+    String lastAnalysis = lastAnalysis(ws, project);
+    synchronized (cache) {
+      CachedVersions cached = cache.get(project);
+      if (cached != null && cached.lastAnalysis.equals(lastAnalysis)) {
+        return cached.versions;
+      }
+    }
+    // loaded out of the lock, concurrent requests on the same project may load it twice
+    List<Version> versions = loadVersions(ws, project);
+    synchronized (cache) {
+      cache.put(project, new CachedVersions(lastAnalysis, versions));
+    }
+    return versions;
+  }
+
+  private static String lastAnalysis(LocalWsClient ws, String project) {
+    JsonArray analyses = ws.get("api/project_analyses/search", params(project, 1, 1)).getAsJsonArray("analyses");
+    return analyses.size() == 0 ? "" : analyses.get(0).getAsJsonObject().get("key").getAsString();
+  }
+
+  private static List<Version> loadVersions(LocalWsClient ws, String project) {
+    Map<String, String[]> valuesByDate = new HashMap<>();
+    int page = 1;
+    JsonObject history;
+    do {
+      Map<String, String> params = new HashMap<>();
+      params.put("component", project);
+      params.put("metrics", String.join(",", METRICS));
+      params.put(WebService.Param.PAGE, String.valueOf(page));
+      params.put(WebService.Param.PAGE_SIZE, String.valueOf(HISTORY_PAGE_SIZE));
+      history = ws.get("api/measures/search_history", params);
+      for (JsonElement measure : history.getAsJsonArray("measures")) {
+        int metricIndex = METRICS.indexOf(measure.getAsJsonObject().get("metric").getAsString());
+        for (JsonElement point : measure.getAsJsonObject().getAsJsonArray("history")) {
+          JsonObject pointObject = point.getAsJsonObject();
+          if (metricIndex >= 0 && pointObject.has("value")) {
+            String[] values = valuesByDate.computeIfAbsent(pointObject.get("date").getAsString(), d -> DEFAULT_VALUES.clone());
+            values[metricIndex] = pointObject.get("value").getAsString();
+          }
+        }
+      }
+      page++;
+    } while (hasNextPage(history, page, HISTORY_PAGE_SIZE));
+
+    List<Version> versions = new ArrayList<>();
+    page = 1;
+    JsonObject analyses;
+    do {
+      analyses = ws.get("api/project_analyses/search", params(project, page, ANALYSES_PAGE_SIZE));
+      for (JsonElement analysis : analyses.getAsJsonArray("analyses")) {
+        String date = analysis.getAsJsonObject().get("date").getAsString();
+        String[] values = valuesByDate.get(date);
+        versions.add(new Version(date, versionName(analysis.getAsJsonObject()),
+          values == null ? DEFAULT_VALUES : values));
+      }
+      page++;
+    } while (hasNextPage(analyses, page, ANALYSES_PAGE_SIZE));
+    return Collections.unmodifiableList(versions);
+  }
+
+  private static Map<String, String> params(String project, int page, int pageSize) {
+    Map<String, String> params = new HashMap<>();
+    params.put(PARAM_PROJECT, project);
+    params.put(WebService.Param.PAGE, String.valueOf(page));
+    params.put(WebService.Param.PAGE_SIZE, String.valueOf(pageSize));
+    return params;
+  }
+
+  private static boolean hasNextPage(JsonObject response, int nextPage, int pageSize) {
+    return (long) (nextPage - 1) * pageSize < response.getAsJsonObject("paging").get("total").getAsInt();
+  }
+
+  /**
+   * Name of the version event of the analysis, or null.
+   */
+  private static String versionName(JsonObject analysis) {
+    if (analysis.has("events")) {
+      for (JsonElement event : analysis.getAsJsonArray("events")) {
+        JsonObject eventObject = event.getAsJsonObject();
+        if ("VERSION".equals(eventObject.get("category").getAsString())) {
+          return eventObject.get("name").getAsString();
+        }
+      }
+    }
+    return null;
+  }
+
+  private static class Version {
+    private final String date;
+    private final String name;
+    // in the order of METRICS
+    private final String[] values;
+
+    private Version(String date, String name, String[] values) {
+      this.date = date;
+      this.name = name;
+      this.values = values;
+    }
+  }
+
+  private static class CachedVersions {
+    private final String lastAnalysis;
+    private final List<Version> versions;
+
+    private CachedVersions(String lastAnalysis, List<Version> versions) {
+      this.lastAnalysis = lastAnalysis;
+      this.versions = versions;
+    }
+  }
+}
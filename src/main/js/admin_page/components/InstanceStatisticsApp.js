@@ -20,7 +20,7 @@ import React from "react";
 // SonarComponents (referenced as sonar-components here, see the Webpack config)
 // exposes React components exposed by SonarQube.
 import { DeferredSpinner } from "sonar-components";
-import { findIssuesStatistics, findProjects, findQualityProfilesStatistics, findQualityQatesStatistics } from "../../common/api";
+import { findInstanceStatistics } from "../../common/api";
 
 export default class InstanceStatisticsApp extends React.PureComponent {
   state = {
@@ -32,18 +32,13 @@ export default class InstanceStatisticsApp extends React.PureComponent {
   };
 
   componentDidMount() {
-    Promise.all([
-      findQualityProfilesStatistics(),
-      findQualityQatesStatistics(),
-      findIssuesStatistics(),
-      findProjects()
-    ]).then(([numberOfQualityProfiles, numberOfQualityGates, numberOfIssues, numberOfProjects]) => {
+    findInstanceStatistics().then(statistics => {
       this.setState({
         loading: false,
-        numberOfQualityProfiles,
-        numberOfQualityGates,
-        numberOfIssues,
-        numberOfProjects
+        numberOfQualityProfiles: statistics.qualityProfiles,
+        numberOfQualityGates: statistics.qualityGates,
+        numberOfIssues: statistics.issues,
+        numberOfProjects: statistics.projects
       });
     });
   }
@@ -79,7 +74,7 @@ export default class InstanceStatisticsApp extends React.PureComponent {
               <td className="code-name-cell">
                 {window.tp(
                   "example.admin_page.we_have_x_y",
-                  this.state.numberOfIssue,
+                  this.state.numberOfIssues,
                   window.t("example.admin_page.issues")
                 )}
               </td>
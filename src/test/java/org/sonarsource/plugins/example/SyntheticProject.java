@@ -0,0 +1,98 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+/**
+ * Source files generated on disk for the benchmarks, with a known proportion of lines holding an URL
+ * or a FIXME. Files are spread in directories of {@value #FILES_PER_DIRECTORY} files.
+ */
+public final class SyntheticProject {
+
+  public static final String MODULE_KEY = "synthetic";
+  public static final int FILES_PER_DIRECTORY = 100;
+  // one line out of URL_LINE_PERIOD holds an URL, one out of FIXME_LINE_PERIOD a FIXME
+  public static final int URL_LINE_PERIOD = 20;
+  public static final int FIXME_LINE_PERIOD = 50;
+
+  private SyntheticProject() {
+    // only statics
+  }
+
+  /**
+   * Writes the files under the base directory and returns them as main input files of the given language.
+   */
+  public static List<InputFile> generate(Path baseDir, String language, String suffix, int files, int linesPerFile)
+    throws IOException {
+    List<InputFile> inputFiles = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      String relativePath = "src/dir" + (i / FILES_PER_DIRECTORY) + "/File" + i + suffix;
+      String content = content(i, linesPerFile);
+      Path file = baseDir.resolve(relativePath);
+      Files.createDirectories(file.getParent());
+      Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+      inputFiles.add(TestInputFileBuilder.create(MODULE_KEY, relativePath)
+        .setModuleBaseDir(baseDir)
+        .setLanguage(language)
+        .setType(InputFile.Type.MAIN)
+        .setCharset(StandardCharsets.UTF_8)
+        .initMetadata(content)
+        .build());
+    }
+    return inputFiles;
+  }
+
+  static String content(int fileIndex, int lines) {
+    StringBuilder content = new StringBuilder(lines * 40);
+    for (int line = 1; line <= lines; line++) {
+      if (line % URL_LINE_PERIOD == 0) {
+        content.append("  call(\"https://host").append(line % 7).append(".example.com/api/").append(fileIndex).append("\");\n");
+      } else if (line % FIXME_LINE_PERIOD == 0) {
+        content.append("  // FIXME check the value of item ").append(line).append('\n');
+      } else {
+        content.append("  value").append(line).append(" = compute(value, ").append(fileIndex).append(");\n");
+      }
+    }
+    return content.toString();
+  }
+
+  public static void delete(Path baseDir) throws IOException {
+    try (Stream<Path> paths = Files.walk(baseDir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.delete(path);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
+}
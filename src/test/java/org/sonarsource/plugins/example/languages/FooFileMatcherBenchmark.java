@@ -0,0 +1,108 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.languages;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonarsource.plugins.example.settings.FooLanguageProperties;
+
+/**
+ * Selection of the Foo files of a listing of {@value #FILES} paths, as done for each file of the project:
+ * with the matcher of {@link FooLanguage}, and with the former reading of the suffixes from the configuration
+ * followed by a test of each suffix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FooFileMatcherBenchmark {
+
+  private static final int FILES = 500_000;
+  private static final String[] EXTENSIONS = {".foo", ".FOO", ".foo2", ".java", ".xml", ".txt", ".md", ".js"};
+
+  @Param({".foo,foo2,.f3", ".foo,foo2,.f3,**/generated/*.foo.txt"})
+  public String suffixes;
+
+  private String[] paths;
+  private Configuration config;
+  private FooLanguage language;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    paths = new String[FILES];
+    for (int i = 0; i < FILES; i++) {
+      String directory = i % 10 == 0 ? "src/generated/dir" : "src/dir";
+      paths[i] = directory + (i / 100) + "/File" + i + EXTENSIONS[i % EXTENSIONS.length];
+    }
+    MapSettings settings = new MapSettings();
+    settings.setProperty(FooLanguageProperties.FILE_SUFFIXES_KEY, suffixes);
+    config = settings.asConfig();
+    language = new FooLanguage(config);
+  }
+
+  /**
+   * The matcher is taken once per listing, like the sensor does once per analysis.
+   */
+  @Benchmark
+  public int fileMatcher() {
+    FooFileMatcher matcher = language.fileMatcher();
+    int selected = 0;
+    for (String path : paths) {
+      if (matcher.matches(path)) {
+        selected++;
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Plain suffixes only, as they were the only ones supported.
+   */
+  @Benchmark
+  public int formerSuffixes() {
+    int selected = 0;
+    for (String path : paths) {
+      String lowerCase = path.toLowerCase(Locale.ENGLISH);
+      for (String suffix : config.getStringArray(FooLanguageProperties.FILE_SUFFIXES_KEY)) {
+        if (suffix.indexOf('*') < 0 && lowerCase.endsWith(FooFileMatcher.normalizeSuffix(suffix))) {
+          selected++;
+          break;
+        }
+      }
+    }
+    return selected;
+  }
+}
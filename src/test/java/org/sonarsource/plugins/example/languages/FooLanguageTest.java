@@ -0,0 +1,60 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.languages;
+
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonarsource.plugins.example.settings.FooLanguageProperties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FooLanguageTest {
+
+  @Test
+  public void suffixes_are_normalized_and_patterns_left_out() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(FooLanguageProperties.FILE_SUFFIXES_KEY, "foo, .FOO2,**/*.foo.txt");
+    FooLanguage language = new FooLanguage(settings.asConfig());
+
+    assertArrayEquals(new String[] {".foo", ".foo2"}, language.getFileSuffixes());
+    assertTrue(language.fileMatcher().hasPatterns());
+    assertTrue(language.fileMatcher().matches("src/File.FOO"));
+    assertTrue(language.fileMatcher().matches("src/a/b/File.foo.txt"));
+    assertFalse(language.fileMatcher().matches("src/File.txt"));
+  }
+
+  @Test
+  public void matcher_is_reused_until_suffixes_change() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(FooLanguageProperties.FILE_SUFFIXES_KEY, ".foo");
+    FooLanguage language = new FooLanguage(settings.asConfig());
+    FooFileMatcher matcher = language.fileMatcher();
+
+    assertSame(matcher, language.fileMatcher());
+
+    settings.setProperty(FooLanguageProperties.FILE_SUFFIXES_KEY, ".bar");
+    assertArrayEquals(new String[] {".bar"}, language.getFileSuffixes());
+    assertTrue(language.fileMatcher().matches("src/File.bar"));
+    assertFalse(language.fileMatcher().matches("src/File.foo"));
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.measures;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.ce.measure.Component;
+import org.sonar.api.ce.measure.MeasureComputer;
+import org.sonar.api.ce.measure.test.TestComponent;
+import org.sonar.api.ce.measure.test.TestMeasureComputerContext;
+import org.sonar.api.ce.measure.test.TestMeasureComputerDefinitionContext;
+import org.sonar.api.ce.measure.test.TestSettings;
+
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_COUNT;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_HISTOGRAM;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_SUM;
+
+/**
+ * Cost of the measure computers on a directory of {@code children} files, as done by the Compute Engine
+ * for each directory and project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ComputeSizeBenchmark {
+
+  @Param({"100", "10000"})
+  public int children;
+
+  private final ComputeSizeAverage average = new ComputeSizeAverage();
+  private final ComputeSizeRating rating = new ComputeSizeRating();
+  private final MeasureComputer.MeasureComputerDefinition averageDefinition = average.define(new TestMeasureComputerDefinitionContext());
+  private final MeasureComputer.MeasureComputerDefinition ratingDefinition = rating.define(new TestMeasureComputerDefinitionContext());
+  private Integer[] sizes;
+  private Integer[] ones;
+  private String[] histograms;
+  private TestMeasureComputerContext averageContext;
+  private TestMeasureComputerContext ratingContext;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    sizes = new Integer[children];
+    ones = new Integer[children];
+    histograms = new String[children];
+    for (int i = 0; i < children; i++) {
+      sizes[i] = 5 + i % 40;
+      ones[i] = 1;
+      histograms[i] = SizeHistogram.of(sizes[i]);
+    }
+  }
+
+  /**
+   * Computed measures are stored in the context, so each computation starts from a new one.
+   */
+  @Setup(Level.Invocation)
+  public void newContexts() {
+    averageContext = new TestMeasureComputerContext(new TestComponent("dir", Component.Type.DIRECTORY, null),
+      new TestSettings(), averageDefinition);
+    averageContext.addChildrenMeasures(FILENAME_SIZE_SUM.key(), sizes);
+    averageContext.addChildrenMeasures(FILENAME_SIZE_COUNT.key(), ones);
+    averageContext.addChildrenMeasures(FILENAME_SIZE_HISTOGRAM.key(), histograms);
+    ratingContext = new TestMeasureComputerContext(new TestComponent("dir", Component.Type.DIRECTORY, null),
+      new TestSettings(), ratingDefinition);
+    ratingContext.addInputMeasure(FILENAME_SIZE.key(), 25);
+  }
+
+  @Benchmark
+  public TestMeasureComputerContext computeSizeAverage() {
+    average.compute(averageContext);
+    return averageContext;
+  }
+
+  @Benchmark
+  public TestMeasureComputerContext computeSizeRating() {
+    rating.compute(ratingContext);
+    return ratingContext;
+  }
+}
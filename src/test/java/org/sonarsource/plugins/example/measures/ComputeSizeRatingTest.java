@@ -0,0 +1,71 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.measures;
+
+import org.junit.Test;
+import org.sonar.api.ce.measure.Component;
+import org.sonar.api.ce.measure.test.TestComponent;
+import org.sonar.api.ce.measure.test.TestMeasureComputerContext;
+import org.sonar.api.ce.measure.test.TestMeasureComputerDefinitionContext;
+import org.sonar.api.ce.measure.test.TestSettings;
+import org.sonarsource.plugins.example.settings.RatingProperties;
+
+import static org.junit.Assert.assertEquals;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE;
+import static org.sonarsource.plugins.example.measures.ExampleMetrics.FILENAME_SIZE_RATING;
+
+public class ComputeSizeRatingTest {
+
+  private final ComputeSizeRating computer = new ComputeSizeRating();
+
+  @Test
+  public void rating_uses_thresholds_of_property() {
+    assertEquals(2, rate(12, "5,15"));
+    assertEquals(3, rate(12, "5,10"));
+  }
+
+  @Test
+  public void rating_uses_default_thresholds_when_unset() {
+    assertEquals(2, rate(25, null));
+    assertEquals(2, rate(25, " "));
+  }
+
+  @Test
+  public void rating_uses_default_thresholds_when_invalid() {
+    assertEquals(2, rate(25, "20,ten"));
+    assertEquals(2, rate(25, "50,40"));
+    assertEquals(RatingGrid.RATING_E, rate(51, "1,2,3,4,5,6"));
+  }
+
+  private int rate(int size, String thresholds) {
+    TestSettings settings = new TestSettings();
+    if (thresholds != null) {
+      settings.setValue(RatingProperties.FILENAME_SIZE_THRESHOLDS_KEY, thresholds);
+    }
+    TestComponent file = new TestComponent("file", Component.Type.FILE, new TestComponent.FileAttributesImpl(null, "foo"));
+    TestMeasureComputerContext context = new TestMeasureComputerContext(file, settings,
+      computer.define(new TestMeasureComputerDefinitionContext()));
+    context.addInputMeasure(FILENAME_SIZE.key(), size);
+
+    computer.compute(context);
+
+    return context.getMeasure(FILENAME_SIZE_RATING.key()).getIntValue();
+  }
+}
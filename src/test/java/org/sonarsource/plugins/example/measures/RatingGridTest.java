@@ -0,0 +1,77 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.measures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RatingGridTest {
+
+  @Test
+  public void values_are_rated_by_thresholds() {
+    RatingGrid grid = RatingGrid.parse("20, 30,40 ,50");
+
+    assertEquals(RatingGrid.RATING_A, grid.rating(0));
+    assertEquals(RatingGrid.RATING_A, grid.rating(20));
+    assertEquals(2, grid.rating(21));
+    assertEquals(3, grid.rating(40));
+    assertEquals(4, grid.rating(50));
+    assertEquals(RatingGrid.RATING_E, grid.rating(51));
+    assertEquals("20, 30,40 ,50", grid.definition());
+  }
+
+  @Test
+  public void fewer_thresholds_give_worst_rating_sooner() {
+    RatingGrid grid = RatingGrid.parse("10,20");
+
+    assertEquals(RatingGrid.RATING_A, grid.rating(10));
+    assertEquals(2, grid.rating(20));
+    assertEquals(3, grid.rating(21));
+  }
+
+  @Test
+  public void other_definition_keeps_thresholds() {
+    RatingGrid grid = RatingGrid.parse("10,20").withDefinition("invalid");
+
+    assertEquals("invalid", grid.definition());
+    assertEquals(2, grid.rating(20));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void too_many_thresholds() {
+    RatingGrid.parse("1,2,3,4,5");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void threshold_not_a_number() {
+    RatingGrid.parse("20,thirty");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void empty_threshold() {
+    RatingGrid.parse("20,,40");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void thresholds_not_increasing() {
+    RatingGrid.parse("20,20,40");
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.measures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SizeHistogramTest {
+
+  @Test
+  public void histograms_of_children_are_merged_by_size() {
+    SizeHistogram histogram = new SizeHistogram();
+    histogram.merge(SizeHistogram.of(12));
+    histogram.merge(SizeHistogram.of(5));
+    histogram.merge("5=2;30=1");
+    histogram.merge(null);
+    histogram.merge("");
+
+    assertEquals("5=3;12=1;30=1", histogram.toString());
+    assertEquals(5, histogram.min());
+    assertEquals(30, histogram.max());
+  }
+
+  @Test
+  public void percentile_is_nearest_rank() {
+    SizeHistogram histogram = new SizeHistogram();
+    histogram.merge("1=1;2=1;3=1;4=1;5=1;6=1;7=1;8=1;9=1;10=1");
+
+    assertEquals(9, histogram.percentile(90));
+    assertEquals(10, histogram.percentile(91));
+    assertEquals(1, histogram.percentile(0));
+    assertEquals(10, histogram.percentile(100));
+  }
+
+  @Test
+  public void percentile_of_large_counts() {
+    SizeHistogram histogram = new SizeHistogram();
+    histogram.merge("10=899;20=1;40=100");
+
+    assertEquals(20, histogram.percentile(90));
+    assertEquals(40, histogram.percentile(91));
+  }
+
+  @Test
+  public void empty_histogram() {
+    SizeHistogram histogram = new SizeHistogram();
+
+    assertTrue(histogram.isEmpty());
+    assertEquals("", histogram.toString());
+  }
+}
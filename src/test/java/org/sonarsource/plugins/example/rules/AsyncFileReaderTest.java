@@ -0,0 +1,231 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncFileReaderTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void files_loaded_and_not_released_are_bounded_by_budget() throws Exception {
+    List<Path> files = createFiles(6, 4 * 1024);
+    DelayingLoader loader = new DelayingLoader();
+    try (AsyncFileReader reader = new AsyncFileReader(files.size(), 8, loader)) {
+      List<CompletableFuture<AsyncFileReader.Loaded>> futures = new ArrayList<>();
+      for (Path file : files) {
+        futures.add(reader.load(file, 0));
+      }
+
+      List<AsyncFileReader.Loaded> loaded = new ArrayList<>();
+      Deque<AsyncFileReader.Loaded> inUse = new ArrayDeque<>();
+      while (loaded.size() < files.size() || !inUse.isEmpty()) {
+        // two files of 4 KB fit in the budget of 8 KB
+        while (inUse.size() < 2 && loaded.size() < files.size()) {
+          AsyncFileReader.Loaded next = awaitAny(futures, loaded);
+          loaded.add(next);
+          inUse.add(next);
+        }
+        assertFalse("more than 8 KB loaded", isAnyOtherDone(futures, loaded));
+        loader.release(reader, inUse.poll());
+      }
+      assertEquals(2, loader.maxConcurrentLoads.get());
+    }
+  }
+
+  @Test
+  public void each_future_gets_its_own_file_whatever_the_completion_order() throws Exception {
+    List<Path> files = createFiles(5, 100);
+    DelayingLoader loader = new DelayingLoader();
+    // the first file is the slowest to load, the last one the fastest
+    for (int i = 0; i < files.size(); i++) {
+      loader.delays.put(files.get(i), 50L * (files.size() - i));
+    }
+    try (AsyncFileReader reader = new AsyncFileReader(files.size(), 1024, loader)) {
+      List<CompletableFuture<AsyncFileReader.Loaded>> futures = new ArrayList<>();
+      for (Path file : files) {
+        futures.add(reader.load(file, 0));
+      }
+
+      for (int i = 0; i < files.size(); i++) {
+        AsyncFileReader.Loaded loaded = futures.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(new String(Files.readAllBytes(files.get(i)), StandardCharsets.UTF_8), text(loaded.content.bytes));
+        loader.release(reader, loaded);
+      }
+      List<Path> reversed = new ArrayList<>(files);
+      Collections.reverse(reversed);
+      assertEquals(reversed, loader.completionOrder);
+    }
+  }
+
+  @Test
+  public void file_larger_than_budget_is_loaded_alone() throws Exception {
+    List<Path> files = createFiles(2, 16 * 1024);
+    DelayingLoader loader = new DelayingLoader();
+    try (AsyncFileReader reader = new AsyncFileReader(2, 8, loader)) {
+      CompletableFuture<AsyncFileReader.Loaded> first = reader.load(files.get(0), 0);
+      CompletableFuture<AsyncFileReader.Loaded> second = reader.load(files.get(1), 0);
+
+      AsyncFileReader.Loaded loaded = awaitAny(Arrays.asList(first, second), Collections.emptyList());
+      CompletableFuture<AsyncFileReader.Loaded> other = loaded == first.getNow(null) ? second : first;
+      Thread.sleep(100);
+      assertFalse(other.isDone());
+      loader.release(reader, loaded);
+      loader.release(reader, other.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      assertEquals(1, loader.maxConcurrentLoads.get());
+    }
+  }
+
+  @Test
+  public void budget_is_given_back_when_load_fails() throws Exception {
+    List<Path> files = createFiles(3, 8 * 1024);
+    DelayingLoader loader = new DelayingLoader();
+    loader.failing.add(files.get(0));
+    loader.failing.add(files.get(1));
+    try (AsyncFileReader reader = new AsyncFileReader(1, 8, loader)) {
+      CompletableFuture<AsyncFileReader.Loaded> first = reader.load(files.get(0), 0);
+      CompletableFuture<AsyncFileReader.Loaded> second = reader.load(files.get(1), 0);
+      CompletableFuture<AsyncFileReader.Loaded> third = reader.load(files.get(2), 0);
+
+      assertFailed(first);
+      assertFailed(second);
+      loader.release(reader, third.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+  }
+
+  private List<Path> createFiles(int count, int size) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      char[] content = new char[size];
+      Arrays.fill(content, (char) ('a' + i));
+      Path file = temp.newFile("file" + i + ".foo").toPath();
+      Files.write(file, new String(content).getBytes(StandardCharsets.UTF_8));
+      files.add(file);
+    }
+    return files;
+  }
+
+  private static AsyncFileReader.Loaded awaitAny(List<CompletableFuture<AsyncFileReader.Loaded>> futures,
+    List<AsyncFileReader.Loaded> ignored) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    while (System.nanoTime() < deadline) {
+      for (CompletableFuture<AsyncFileReader.Loaded> future : futures) {
+        AsyncFileReader.Loaded loaded = future.getNow(null);
+        if (loaded != null && !ignored.contains(loaded)) {
+          return loaded;
+        }
+      }
+      Thread.sleep(5);
+    }
+    throw new AssertionError("no file loaded in " + TIMEOUT_SECONDS + "s");
+  }
+
+  private static boolean isAnyOtherDone(List<CompletableFuture<AsyncFileReader.Loaded>> futures,
+    List<AsyncFileReader.Loaded> loaded) throws InterruptedException {
+    // leaves some time to the loads which would not wait for the budget
+    Thread.sleep(50);
+    for (CompletableFuture<AsyncFileReader.Loaded> future : futures) {
+      if (future.isDone() && !loaded.contains(future.getNow(null))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void assertFailed(CompletableFuture<AsyncFileReader.Loaded> future) throws InterruptedException {
+    try {
+      future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("expected a failure");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    } catch (TimeoutException e) {
+      fail("the load did not fail in " + TIMEOUT_SECONDS + "s");
+    }
+  }
+
+  private static String text(ByteBuffer bytes) {
+    byte[] array = new byte[bytes.remaining()];
+    bytes.duplicate().get(array);
+    return new String(array, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Stands in for a slow filesystem: loads files after a delay, fails on demand, and records how many
+   * files are loaded at the same time, a file being loaded until its content is released through {@link #release}.
+   */
+  private static final class DelayingLoader implements AsyncFileReader.Loader {
+
+    private final ConcurrentHashMap<Path, Long> delays = new ConcurrentHashMap<>();
+    private final List<Path> failing = Collections.synchronizedList(new ArrayList<>());
+    private final List<Path> completionOrder = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger concurrentLoads = new AtomicInteger();
+    private final AtomicInteger maxConcurrentLoads = new AtomicInteger();
+
+    @Override
+    public CandidateLineReader.Content load(Path path, long maxBytes, ByteBufferPool pool) throws IOException {
+      try {
+        Thread.sleep(delays.getOrDefault(path, 10L));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+      if (failing.contains(path)) {
+        throw new IOException("Unable to read " + path);
+      }
+      CandidateLineReader.Content content = CandidateLineReader.load(path, maxBytes, pool);
+      maxConcurrentLoads.accumulateAndGet(concurrentLoads.incrementAndGet(), Math::max);
+      completionOrder.add(path);
+      return content;
+    }
+
+    void release(AsyncFileReader reader, AsyncFileReader.Loaded loaded) {
+      concurrentLoads.decrementAndGet();
+      reader.release(loaded);
+    }
+  }
+}
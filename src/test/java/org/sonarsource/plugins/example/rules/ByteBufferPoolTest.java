@@ -0,0 +1,78 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ByteBufferPoolTest {
+
+  @Test
+  public void buffers_are_sized_to_the_power_of_two_above_capacity() {
+    ByteBufferPool pool = new ByteBufferPool(ByteBufferPool.BUFFER_SIZE);
+
+    assertBuffer(pool.acquire(0), ByteBufferPool.MIN_BUFFER_SIZE, 0);
+    assertBuffer(pool.acquire(100), ByteBufferPool.MIN_BUFFER_SIZE, 100);
+    assertBuffer(pool.acquire(ByteBufferPool.MIN_BUFFER_SIZE + 1), 2 * ByteBufferPool.MIN_BUFFER_SIZE, ByteBufferPool.MIN_BUFFER_SIZE + 1);
+    assertBuffer(pool.acquire(100_000), 128 * 1024, 100_000);
+  }
+
+  @Test
+  public void released_buffer_is_reused_for_same_size_class() {
+    ByteBufferPool pool = new ByteBufferPool(ByteBufferPool.BUFFER_SIZE);
+    ByteBuffer buffer = pool.acquire(5000);
+    buffer.put((byte) 1);
+    pool.release(buffer);
+
+    assertNotSame(buffer, pool.acquire(100));
+    ByteBuffer reused = pool.acquire(8000);
+    assertSame(buffer, reused);
+    assertEquals(0, reused.position());
+    assertEquals(8000, reused.limit());
+  }
+
+  @Test
+  public void heap_buffers_are_allocated_over_the_direct_bytes() {
+    ByteBufferPool pool = new ByteBufferPool(ByteBufferPool.BUFFER_SIZE);
+    ByteBuffer full = pool.acquire(ByteBufferPool.BUFFER_SIZE);
+    assertTrue(full.isDirect());
+
+    ByteBuffer overflow = pool.acquire(10);
+    assertFalse(overflow.isDirect());
+    assertEquals(10, overflow.capacity());
+    pool.release(overflow);
+
+    pool.release(full);
+    assertSame(full, pool.acquire(ByteBufferPool.BUFFER_SIZE - 1));
+  }
+
+  private static void assertBuffer(ByteBuffer buffer, int capacity, int limit) {
+    assertTrue(buffer.isDirect());
+    assertEquals(capacity, buffer.capacity());
+    assertEquals(0, buffer.position());
+    assertEquals(limit, buffer.limit());
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class CachedFindingsTest {
+
+  private static final List<ErrorDataFromExternalLinter> ERRORS = Arrays.asList(
+    new ErrorDataFromExternalLinter("foundURL", "Unexpected URL was found in code", "a.foo", 120, 4, 30),
+    new ErrorDataFromExternalLinter("foundURL", "Unexpected URL was found in code", "a.foo", 3, 0, 18),
+    new ErrorDataFromExternalLinter("ExampleRule1", "Corrigez ça ✓", "a.foo", 3),
+    new ErrorDataFromExternalLinter("ExampleRule2", "", "a.foo", 100_000, 70_000, 70_001));
+
+  @Test
+  public void findings_are_read_back_with_path_of_reader() throws IOException {
+    CachedFindings findings = CachedFindings.read(ByteBuffer.wrap(write(ERRORS)), "b.foo");
+
+    assertEquals(ERRORS.size(), findings.size());
+    List<String> expected = new ArrayList<>();
+    for (ErrorDataFromExternalLinter error : ERRORS) {
+      expected.add(error.toString().replace("a.foo", "b.foo"));
+    }
+    assertEquals(expected.toString(), findings.toString());
+    assertEquals(expected.get(2), findings.get(2).toString());
+  }
+
+  @Test
+  public void no_findings() throws IOException {
+    CachedFindings findings = CachedFindings.read(ByteBuffer.wrap(write(Collections.emptyList())), "a.foo");
+
+    assertEquals(0, findings.size());
+    assertFalse(findings.iterator().hasNext());
+  }
+
+  @Test
+  public void iterators_are_independent() throws IOException {
+    CachedFindings findings = CachedFindings.read(ByteBuffer.wrap(write(ERRORS)), "a.foo");
+    Iterator<ErrorDataFromExternalLinter> first = findings.iterator();
+    first.next();
+
+    assertEquals(ERRORS.get(0).toString(), findings.iterator().next().toString());
+    assertEquals(ERRORS.get(1).toString(), first.next().toString());
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void iterator_ends_after_last_finding() throws IOException {
+    Iterator<ErrorDataFromExternalLinter> it = CachedFindings.read(ByteBuffer.wrap(write(ERRORS.subList(0, 1))), "a.foo").iterator();
+    it.next();
+    it.next();
+  }
+
+  @Test
+  public void truncated_entry_fails_when_read() throws IOException {
+    byte[] bytes = write(ERRORS);
+    for (int length = 0; length < bytes.length; length++) {
+      try {
+        CachedFindings.read(ByteBuffer.wrap(Arrays.copyOf(bytes, length)), "a.foo");
+        fail("Truncated to " + length + " bytes");
+      } catch (IOException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void entry_of_other_version_is_a_miss() throws IOException {
+    byte[] bytes = write(ERRORS);
+    bytes[3] = (byte) (CachedFindings.VERSION + 1);
+
+    assertNull(CachedFindings.read(ByteBuffer.wrap(bytes), "a.foo"));
+  }
+
+  @Test(expected = IOException.class)
+  public void other_file_fails() throws IOException {
+    CachedFindings.read(ByteBuffer.wrap("<foolint/>".getBytes("UTF-8")), "a.foo");
+  }
+
+  private static byte[] write(List<ErrorDataFromExternalLinter> errors) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CachedFindings.write(errors, out);
+    return out.toByteArray();
+  }
+}
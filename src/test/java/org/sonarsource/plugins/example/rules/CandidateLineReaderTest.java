@@ -0,0 +1,150 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CandidateLineReaderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final ByteBufferPool pool = new ByteBufferPool(ByteBufferPool.BUFFER_SIZE);
+
+  @Test
+  public void lines_are_split_on_all_terminators() throws IOException {
+    String text = "\uFEFFa\nb\r\nc\rhttp://d\n\nhttps://e";
+
+    assertLines(text, StandardCharsets.UTF_8, true, "1:a", "2:b", "3:c", "4:http://d", "5:", "6:https://e");
+    assertLines(text, StandardCharsets.UTF_8, false, "4:http://d", "6:https://e");
+    assertLines(text, StandardCharsets.UTF_16BE, false, "1:a", "2:b", "3:c", "4:http://d", "5:", "6:https://e");
+  }
+
+  @Test
+  public void file_larger_than_chunk_is_read_in_chunks() throws IOException {
+    String text = largeText(new Random(42));
+    Path file = write(text, StandardCharsets.UTF_8);
+
+    CandidateLineReader.Content content = CandidateLineReader.load(file, 0, pool);
+    assertNull(content.bytes);
+    content.release();
+
+    assertLines(text, StandardCharsets.UTF_8, true, expectedLines(text, true));
+    assertLines(text, StandardCharsets.UTF_8, false, expectedLines(text, false));
+    assertLines(text, StandardCharsets.UTF_16LE, true, expectedLines(text, true));
+  }
+
+  @Test
+  public void line_longer_than_chunk_is_read_whole() throws IOException {
+    String longLine = "http://example.com/" + String.join("", Collections.nCopies(3 * CandidateLineReader.CHUNK_THRESHOLD, "a"));
+    String text = "first\r\n" + longLine + "\r\nlast";
+
+    assertLines(text, StandardCharsets.UTF_8, false, "2:" + longLine);
+  }
+
+  @Test
+  public void binary_file_is_skipped() throws IOException {
+    String text = "a\u0000" + String.join("", Collections.nCopies(2 * CandidateLineReader.CHUNK_THRESHOLD, "http://x\n"));
+    Path file = write(text, StandardCharsets.UTF_8);
+
+    CandidateLineReader.Result result = CandidateLineReader.read(file, StandardCharsets.UTF_8, 0, pool, true,
+      (line, content) -> {
+        throw new AssertionError("unexpected line " + line);
+      });
+
+    assertEquals(CandidateLineReader.Outcome.BINARY, result.outcome);
+  }
+
+  @Test
+  public void file_larger_than_max_bytes_is_not_read() throws IOException {
+    Path file = write("http://example.com", StandardCharsets.UTF_8);
+
+    CandidateLineReader.Result result = CandidateLineReader.read(file, StandardCharsets.UTF_8, 10, pool, true,
+      (line, content) -> {
+        throw new AssertionError("unexpected line " + line);
+      });
+
+    assertEquals(CandidateLineReader.Outcome.TOO_LARGE, result.outcome);
+    assertEquals(18, result.bytes);
+  }
+
+  /**
+   * Lines of random lengths and terminators, so that chunks end on every kind of boundary, including
+   * between "\r" and "\n" and in the middle of the URL scheme.
+   */
+  private static String largeText(Random random) {
+    String[] terminators = {"\n", "\r\n", "\r"};
+    StringBuilder text = new StringBuilder();
+    while (text.length() < 3 * CandidateLineReader.CHUNK_THRESHOLD) {
+      int length = random.nextInt(200);
+      for (int i = 0; i < length; i++) {
+        text.append(random.nextInt(50) == 0 ? "http://" : String.valueOf((char) ('a' + random.nextInt(26))));
+      }
+      text.append(terminators[random.nextInt(terminators.length)]);
+    }
+    return text.toString();
+  }
+
+  private static String[] expectedLines(String text, boolean allLines) {
+    List<String> lines = new ArrayList<>();
+    String[] split = text.split("\r\n|\r|\n", -1);
+    for (int i = 0; i < split.length; i++) {
+      boolean last = i == split.length - 1;
+      if ((allLines || split[i].contains("http://")) && !(last && split[i].isEmpty())) {
+        lines.add((i + 1) + ":" + split[i]);
+      }
+    }
+    return lines.toArray(new String[0]);
+  }
+
+  private void assertLines(String text, Charset charset, boolean allLines, String... expected) throws IOException {
+    Path file = write(text, charset);
+    List<String> lines = new ArrayList<>();
+
+    CandidateLineReader.Result result = CandidateLineReader.read(file, charset, 0, pool, allLines,
+      (line, content) -> lines.add(line + ":" + content));
+
+    assertEquals(CandidateLineReader.Outcome.SCANNED, result.outcome);
+    assertEquals(Files.size(file), result.bytes);
+    List<String> expectedLines = new ArrayList<>();
+    Collections.addAll(expectedLines, expected);
+    assertEquals(expectedLines, lines);
+  }
+
+  private Path write(String text, Charset charset) throws IOException {
+    Path file = temp.newFile().toPath();
+    Files.write(file, text.getBytes(charset));
+    return file;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonarsource.plugins.example.SyntheticProject;
+
+/**
+ * Cost of saving an issue on the first line of each Java file of a synthetic project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CreateIssuesOnJavaFilesSensorBenchmark {
+
+  @Param({"1000", "10000"})
+  public int files;
+
+  private Path baseDir;
+  private List<InputFile> inputFiles;
+  private SensorContextTester context;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    baseDir = Files.createTempDirectory("java-line1-benchmark");
+    inputFiles = SyntheticProject.generate(baseDir, "java", ".java", files, 20);
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    SyntheticProject.delete(baseDir);
+  }
+
+  @Setup(Level.Invocation)
+  public void newContext() {
+    context = SensorContextTester.create(baseDir);
+    for (InputFile inputFile : inputFiles) {
+      context.fileSystem().add(inputFile);
+    }
+  }
+
+  @Benchmark
+  public int analyze() {
+    new CreateIssuesOnJavaFilesSensor().execute(context);
+    return context.allIssues().size();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.plugins.example.SyntheticProject;
+import org.sonarsource.plugins.example.languages.FooLanguage;
+import org.sonarsource.plugins.example.settings.FooLintProperties;
+
+/**
+ * Cost of a FooLint analysis of a synthetic Foo project, with the URL rule and a literal line rule active.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FooLintIssuesLoaderSensorBenchmark {
+
+  @Param({"1000", "10000"})
+  public int files;
+
+  @Param({"200"})
+  public int linesPerFile;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  @Param({"false", "true"})
+  public boolean asyncIo;
+
+  private Path baseDir;
+  private List<InputFile> inputFiles;
+  private SensorContextTester context;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    baseDir = Files.createTempDirectory("foolint-benchmark");
+    inputFiles = SyntheticProject.generate(baseDir, FooLanguage.KEY, ".foo", files, linesPerFile);
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    SyntheticProject.delete(baseDir);
+  }
+
+  /**
+   * Issues and measures are stored in the context, so each analysis starts from a new one.
+   */
+  @Setup(Level.Invocation)
+  public void newContext() {
+    context = SensorContextTester.create(baseDir);
+    for (InputFile inputFile : inputFiles) {
+      context.fileSystem().add(inputFile);
+    }
+    MapSettings settings = new MapSettings();
+    settings.setProperty(FooLintProperties.THREADS_KEY, String.valueOf(threads));
+    settings.setProperty(FooLintProperties.ASYNC_IO_KEY, String.valueOf(asyncIo));
+    settings.setProperty(FooLintProperties.CACHE_MAX_SIZE_KEY, "0");
+    context.setSettings(settings);
+    context.setActiveRules(new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(FooLintRulesDefinition.REPO_KEY, "foundURL"))
+        .build())
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(FooLintRulesDefinition.REPO_KEY, "ExampleRule1"))
+        .setParam("literal", "FIXME")
+        .build())
+      .build());
+  }
+
+  @Benchmark
+  public int analyze() {
+    Configuration config = context.config();
+    new FooLintIssuesLoaderSensor(config, context.fileSystem(), new FooLanguage(config)).execute(context);
+    return context.allIssues().size();
+  }
+}
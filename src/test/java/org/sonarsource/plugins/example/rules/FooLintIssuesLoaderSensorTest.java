@@ -0,0 +1,331 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.issue.IssueLocation;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.plugins.example.languages.FooLanguage;
+import org.sonarsource.plugins.example.measures.ExampleMetrics;
+import org.sonarsource.plugins.example.settings.FooLintProperties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FooLintIssuesLoaderSensorTest {
+
+  private static final String REPORT = "foolint-report.xml";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path baseDir;
+  private final List<InputFile> inputFiles = new ArrayList<>();
+  private final MapSettings settings = new MapSettings();
+  private final ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+  private SensorContextTester context;
+
+  @Before
+  public void setUp() throws IOException {
+    baseDir = temp.newFolder().toPath();
+    settings.setProperty(FooLintProperties.THREADS_KEY, "1");
+  }
+
+  @Test
+  public void report_errors_are_saved_on_their_file_and_line() throws IOException {
+    addFile("src/a.foo", "first\nsecond\nthird\n");
+    addFile("src/b.foo", "only\n");
+    activate(rule("ExampleRule1"), rule("ExampleRule3"));
+    report("<foolint>"
+      + "<file path=\"src/a.foo\">"
+      + "<error rule=\"ExampleRule1\" line=\"2\" message=\"On a line\"/>"
+      + "<error rule=\"ExampleRule3\" message=\"On the file\"/>"
+      + "</file>"
+      + "<file path=\"src/b.foo\"><error rule=\"ExampleRule1\" line=\" 1 \" message=\"Trimmed line\"/></file>"
+      + "</foolint>");
+
+    execute();
+
+    assertEquals("[a.foo:0 ExampleRule3 On the file, a.foo:2 ExampleRule1 On a line, b.foo:1 ExampleRule1 Trimmed line]",
+      issues().toString());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void missing_attribute_fails_the_analysis() throws IOException {
+    addFile("src/a.foo", "first\n");
+    activate(rule("ExampleRule1"));
+    report("<foolint><file path=\"src/a.foo\"><error rule=\"ExampleRule1\" line=\"1\"/></file></foolint>");
+
+    execute();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void error_outside_of_a_file_fails_the_analysis() throws IOException {
+    activate(rule("ExampleRule1"));
+    report("<foolint><error rule=\"ExampleRule1\" line=\"1\" message=\"Where?\"/></foolint>");
+
+    execute();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void invalid_line_fails_the_analysis() throws IOException {
+    addFile("src/a.foo", "first\n");
+    activate(rule("ExampleRule1"));
+    report("<foolint><file path=\"src/a.foo\"><error rule=\"ExampleRule1\" line=\"one\" message=\"Bad line\"/></file></foolint>");
+
+    execute();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void entities_declared_in_the_report_are_not_expanded() throws IOException {
+    addFile("src/a.foo", "first\n");
+    activate(rule("ExampleRule1"));
+    report("<!DOCTYPE foolint [<!ENTITY message \"Expanded\">]>"
+      + "<foolint><file path=\"src/a.foo\"><error rule=\"ExampleRule1\" line=\"1\" message=\"&message;\"/></file></foolint>");
+
+    // the DTD is not read, so the entity is not declared
+    execute();
+  }
+
+  @Test
+  public void errors_of_inactive_rules_are_ignored() throws IOException {
+    addFile("src/a.foo", "first\n");
+    activate(rule("ExampleRule1"));
+    report("<foolint><file path=\"src/a.foo\">"
+      + "<error rule=\"ExampleRule1\" line=\"1\" message=\"Active\"/>"
+      + "<error rule=\"ExampleRule2\" line=\"1\" message=\"Inactive\"/>"
+      + "</file></foolint>");
+
+    execute();
+
+    assertEquals("[a.foo:1 ExampleRule1 Active]", issues().toString());
+  }
+
+  @Test
+  public void duplicate_errors_are_saved_once() throws IOException {
+    addFile("src/a.foo", "first\nsecond\n");
+    activate(rule("ExampleRule1"));
+    report("<foolint>"
+      + "<file path=\"src/a.foo\"><error rule=\"ExampleRule1\" line=\"1\" message=\"Twice\"/></file>"
+      + "<file path=\"src/a.foo\">"
+      + "<error rule=\"ExampleRule1\" line=\"1\" message=\"Twice\"/>"
+      + "<error rule=\"ExampleRule1\" line=\"2\" message=\"Twice\"/>"
+      + "</file>"
+      + "</foolint>");
+
+    execute();
+
+    assertEquals("[a.foo:1 ExampleRule1 Twice, a.foo:2 ExampleRule1 Twice]", issues().toString());
+  }
+
+  @Test
+  public void issues_are_limited_per_file_whatever_their_source() throws IOException {
+    settings.setProperty(FooLintProperties.MAX_ISSUES_PER_FILE_KEY, "2");
+    addFile("src/a.foo", "first\nsecond\nFIXME third\n");
+    addFile("src/b.foo", "FIXME\n");
+    activate(rule("ExampleRule1").setParam(LineRulePack.LITERAL_PARAM, "FIXME"));
+    report("<foolint>"
+      + "<file path=\"src/a.foo\">"
+      + "<error rule=\"ExampleRule1\" line=\"1\" message=\"Reported\"/>"
+      + "<error rule=\"ExampleRule1\" line=\"2\" message=\"Reported\"/>"
+      + "</file>"
+      + "<file path=\"src/b.foo\"><error rule=\"ExampleRule1\" line=\"1\" message=\"Reported\"/></file>"
+      + "</foolint>");
+
+    execute();
+
+    // the findings of the scan of a.foo come after the report errors of another file
+    assertEquals("[a.foo:1 ExampleRule1 Reported, a.foo:2 ExampleRule1 Reported, "
+      + "b.foo:1 ExampleRule1 Line matches 'FIXME', b.foo:1 ExampleRule1 Reported]", issues().toString());
+  }
+
+  @Test
+  public void reported_paths_are_normalized() throws IOException {
+    addFile("src/a.foo", "first\nsecond\nthird\nfourth\n");
+    activate(rule("ExampleRule1"));
+    report("<foolint>"
+      + "<file path=\"src/a.foo\"><error rule=\"ExampleRule1\" line=\"1\" message=\"Relative\"/></file>"
+      + "<file path=\"./src/../src/a.foo\"><error rule=\"ExampleRule1\" line=\"2\" message=\"Redundant\"/></file>"
+      + "<file path=\"src\\a.foo\"><error rule=\"ExampleRule1\" line=\"3\" message=\"Backslash\"/></file>"
+      + "<file path=\"" + baseDir.resolve("src/a.foo") + "\"><error rule=\"ExampleRule1\" line=\"4\" message=\"Absolute\"/></file>"
+      + "<file path=\"src/missing.foo\"><error rule=\"ExampleRule1\" line=\"1\" message=\"Missing\"/></file>"
+      + "</foolint>");
+
+    execute();
+
+    assertEquals("[a.foo:1 ExampleRule1 Relative, a.foo:2 ExampleRule1 Redundant, a.foo:3 ExampleRule1 Backslash, "
+      + "a.foo:4 ExampleRule1 Absolute]", issues().toString());
+  }
+
+  @Test
+  public void missing_paths_are_remembered() throws IOException {
+    InputFile inputFile = addFile("src/a.foo", "first\n");
+    SensorContextTester newContext = newContext();
+    InputFileIndex index = new InputFileIndex(newContext.fileSystem(), new FooLintDiagnostics(0));
+
+    assertSame(inputFile, index.get("./src/a.foo"));
+    assertNull(index.get("src/missing.foo"));
+    assertNull(index.get("src/missing.foo"));
+    assertNull(index.get("./src/missing.foo"));
+    assertEquals(2, index.missingPaths());
+  }
+
+  @Test
+  public void files_are_not_walked_without_rule_checking_their_content() throws IOException {
+    addFile("src/a.foo", "see http://example.com\n");
+    activate(rule("ExampleRule1"));
+
+    execute();
+
+    assertEquals(Collections.emptyList(), issues());
+    assertEquals(0, measure(ExampleMetrics.FOOLINT_FILES_SCANNED));
+
+    activate(rule("foundURL"));
+    execute();
+
+    assertEquals("[a.foo:1 foundURL Unexpected URL was found in code]", issues().toString());
+    assertEquals(1, measure(ExampleMetrics.FOOLINT_FILES_SCANNED));
+  }
+
+  @Test
+  public void files_scanned_in_parallel_or_asynchronously_get_the_same_issues() throws IOException {
+    for (int i = 0; i < 20; i++) {
+      addFile("src/file" + i + ".foo", "FIXME " + i + "\nsee http://example.com/" + i + "\n");
+    }
+    activate(rule("foundURL"), rule("ExampleRule1").setParam(LineRulePack.LITERAL_PARAM, "FIXME"));
+
+    execute();
+    List<String> issues = issues();
+    assertEquals(40, issues.size());
+
+    settings.setProperty(FooLintProperties.THREADS_KEY, "4");
+    execute();
+    assertEquals(issues, issues());
+
+    settings.setProperty(FooLintProperties.ASYNC_IO_KEY, "true");
+    execute();
+    assertEquals(issues, issues());
+  }
+
+  @Test
+  public void cached_findings_are_the_scanned_ones() throws IOException {
+    settings.setProperty(FooLintProperties.CACHE_PATH_KEY, temp.newFolder().getAbsolutePath());
+    settings.setProperty(FooLintProperties.CACHE_MAX_SIZE_KEY, "1");
+    addFile("src/a.foo", "FIXME\nsee http://example.com\n");
+    addFile("src/b.foo", "nothing\n");
+    activate(rule("foundURL"), rule("ExampleRule1").setParam(LineRulePack.LITERAL_PARAM, "FIXME"));
+
+    execute();
+    List<String> issues = issues();
+    assertEquals(0, measure(ExampleMetrics.FOOLINT_CACHE_HITS));
+
+    execute();
+    assertEquals(issues, issues());
+    assertEquals(2, measure(ExampleMetrics.FOOLINT_CACHE_HITS));
+  }
+
+  private InputFile addFile(String relativePath, String content) throws IOException {
+    Path file = baseDir.resolve(relativePath);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    InputFile inputFile = TestInputFileBuilder.create("moduleKey", relativePath)
+      .setModuleBaseDir(baseDir)
+      .setLanguage(FooLanguage.KEY)
+      .setCharset(StandardCharsets.UTF_8)
+      .initMetadata(content)
+      .build();
+    inputFiles.add(inputFile);
+    return inputFile;
+  }
+
+  private void report(String xml) throws IOException {
+    Files.write(baseDir.resolve(REPORT), xml.getBytes(StandardCharsets.UTF_8));
+    settings.setProperty(FooLintIssuesLoaderSensor.REPORT_PATH_KEY, REPORT);
+  }
+
+  private static NewActiveRule.Builder rule(String key) {
+    return new NewActiveRule.Builder().setRuleKey(RuleKey.of(FooLintRulesDefinition.REPO_KEY, key));
+  }
+
+  private void activate(NewActiveRule.Builder... rules) {
+    for (NewActiveRule.Builder rule : rules) {
+      activeRules.addRule(rule.build());
+    }
+  }
+
+  /**
+   * Issues and measures are stored in the context, so each analysis gets a new one.
+   */
+  private SensorContextTester newContext() {
+    SensorContextTester newContext = SensorContextTester.create(baseDir);
+    for (InputFile inputFile : inputFiles) {
+      newContext.fileSystem().add(inputFile);
+    }
+    newContext.setSettings(settings);
+    newContext.setActiveRules(activeRules.build());
+    return newContext;
+  }
+
+  private void execute() {
+    context = newContext();
+    Configuration config = context.config();
+    new FooLintIssuesLoaderSensor(config, context.fileSystem(), new FooLanguage(config)).execute(context);
+  }
+
+  /**
+   * Sorted "file:line rule message" of the issues saved, the line being 0 for issues on the file.
+   */
+  private List<String> issues() {
+    List<String> issues = new ArrayList<>();
+    for (Issue issue : context.allIssues()) {
+      IssueLocation location = issue.primaryLocation();
+      TextRange range = location.textRange();
+      issues.add(((InputFile) location.inputComponent()).filename() + ":" + (range == null ? 0 : range.start().line())
+        + " " + issue.ruleKey().rule() + " " + location.message());
+    }
+    Collections.sort(issues);
+    return issues;
+  }
+
+  private int measure(Metric<Integer> metric) {
+    return context.<Integer>measure(context.project().key(), metric.key()).value();
+  }
+}
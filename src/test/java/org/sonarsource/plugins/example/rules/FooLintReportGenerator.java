@@ -0,0 +1,81 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes synthetic FooLint reports of any size, in the format read by {@link FooLintIssuesLoaderSensor},
+ * for benchmarks and for importing multi-gigabyte reports by hand. The report is streamed, so its size
+ * is not limited by the memory. Errors of each file alternate between ExampleRule1 and ExampleRule3,
+ * on lines 1 to {@code lines}, with distinct messages so that none is deduplicated.
+ * <p>
+ * Usage: {@code FooLintReportGenerator <report> <files> <errorsPerFile> [<lines>]}
+ */
+public final class FooLintReportGenerator {
+
+  static final String[] RULES = {"ExampleRule1", "ExampleRule3"};
+
+  private FooLintReportGenerator() {
+    // only statics
+  }
+
+  public static void main(String[] args) throws IOException, XMLStreamException {
+    if (args.length < 3) {
+      System.err.println("Usage: FooLintReportGenerator <report> <files> <errorsPerFile> [<lines>]");
+      System.exit(1);
+    }
+    int lines = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+    generate(Paths.get(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), lines);
+  }
+
+  /**
+   * Paths of the files are the ones of {@link org.sonarsource.plugins.example.SyntheticProject} for the ".foo" suffix.
+   */
+  static void generate(Path report, int files, int errorsPerFile, int lines) throws IOException, XMLStreamException {
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(report), 64 * 1024)) {
+      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+      writer.writeStartDocument("UTF-8", "1.0");
+      writer.writeStartElement("foolint");
+      for (int file = 0; file < files; file++) {
+        writer.writeStartElement("file");
+        writer.writeAttribute("path", "src/dir" + (file / 100) + "/File" + file + ".foo");
+        for (int error = 0; error < errorsPerFile; error++) {
+          writer.writeEmptyElement("error");
+          writer.writeAttribute("rule", RULES[error % RULES.length]);
+          writer.writeAttribute("line", String.valueOf(1 + error % lines));
+          writer.writeAttribute("message", "Synthetic error " + error);
+        }
+        writer.writeEndElement();
+      }
+      writer.writeEndElement();
+      writer.writeEndDocument();
+      writer.close();
+    }
+  }
+}
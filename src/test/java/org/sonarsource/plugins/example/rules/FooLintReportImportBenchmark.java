@@ -0,0 +1,113 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.plugins.example.SyntheticProject;
+import org.sonarsource.plugins.example.languages.FooLanguage;
+import org.sonarsource.plugins.example.settings.FooLintProperties;
+
+/**
+ * Errors per second imported from a FooLint report written by {@link FooLintReportGenerator}: streaming
+ * of the report, resolution of the files and saving of the issues. No rule checking the content of files is
+ * active, so files are not scanned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FooLintReportImportBenchmark {
+
+  private static final int ERRORS = 200_000;
+  private static final int LINES_PER_FILE = 100;
+
+  @Param({"10", "1000"})
+  public int errorsPerFile;
+
+  private Path baseDir;
+  private List<InputFile> inputFiles;
+  private SensorContextTester context;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException, XMLStreamException {
+    baseDir = Files.createTempDirectory("foolint-report-benchmark");
+    int files = ERRORS / errorsPerFile;
+    inputFiles = SyntheticProject.generate(baseDir, FooLanguage.KEY, ".foo", files, LINES_PER_FILE);
+    FooLintReportGenerator.generate(baseDir.resolve("foolint.xml"), files, errorsPerFile, LINES_PER_FILE);
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    SyntheticProject.delete(baseDir);
+  }
+
+  @Setup(Level.Invocation)
+  public void newContext() {
+    context = SensorContextTester.create(baseDir);
+    for (InputFile inputFile : inputFiles) {
+      context.fileSystem().add(inputFile);
+    }
+    MapSettings settings = new MapSettings();
+    settings.setProperty(FooLintIssuesLoaderSensor.REPORT_PATH_KEY, "foolint.xml");
+    settings.setProperty(FooLintProperties.MAX_ISSUES_PER_FILE_KEY, String.valueOf(errorsPerFile));
+    context.setSettings(settings);
+    ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+    for (String rule : FooLintReportGenerator.RULES) {
+      activeRules.addRule(new NewActiveRule.Builder().setRuleKey(RuleKey.of(FooLintRulesDefinition.REPO_KEY, rule)).build());
+    }
+    context.setActiveRules(activeRules.build());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ERRORS)
+  public int importReport() {
+    Configuration config = context.config();
+    new FooLintIssuesLoaderSensor(config, context.fileSystem(), new FooLanguage(config)).execute(context);
+    return context.allIssues().size();
+  }
+}
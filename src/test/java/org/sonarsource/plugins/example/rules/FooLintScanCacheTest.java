@@ -0,0 +1,141 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FooLintScanCacheTest {
+
+  private static final String FINGERPRINT = FooLintScanCache.fingerprint(Collections.singletonList("config"));
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = temp.newFolder().toPath().resolve("cache");
+  }
+
+  @Test
+  public void findings_are_found_by_content_hash() {
+    FooLintScanCache cache = FooLintScanCache.open(directory, FINGERPRINT, 1024 * 1024);
+    List<ErrorDataFromExternalLinter> errors = Arrays.asList(
+      new ErrorDataFromExternalLinter("foundURL", "Unexpected URL", "a.foo", 3, 4, 20),
+      new ErrorDataFromExternalLinter("ExampleRule1", "Fix it", "a.foo", 1));
+
+    cache.put("a.foo", "hash1", errors);
+
+    assertEquals("[foundURL|Unexpected URL|b.foo(3:4-20), ExampleRule1|Fix it|b.foo(1)]", cache.get("b.foo", "hash1").toString());
+    assertNull(cache.get("a.foo", "hash2"));
+    assertNull(FooLintScanCache.open(directory, FooLintScanCache.fingerprint(Collections.singletonList("other")), 1024 * 1024)
+      .get("a.foo", "hash1"));
+    assertEquals(1, cache.writes());
+    assertEquals(1, cache.hits());
+  }
+
+  @Test
+  public void least_recently_used_entries_are_evicted_above_max_size() throws IOException {
+    FooLintScanCache cache = FooLintScanCache.open(directory, FINGERPRINT, 1024 * 1024);
+    for (int i = 0; i < 10; i++) {
+      cache.put("a.foo", "hash" + i, Collections.singletonList(new ErrorDataFromExternalLinter("foundURL", "Message " + i, "a.foo", i)));
+    }
+    long entrySize = Files.size(cache.entryFile("hash0"));
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 10; i++) {
+      // the most recently used entry is the one of hash9
+      setAge(cache.entryFile("hash" + i), TimeUnit.MINUTES.toMillis(10 - i), now);
+    }
+
+    FooLintScanCache small = FooLintScanCache.open(directory, FINGERPRINT, 5 * entrySize);
+    small.put("a.foo", "hash10", Collections.emptyList());
+    small.evict();
+
+    // evicted down to 80% of the maximum size
+    assertEquals(4, entries().size());
+    assertNull(small.get("a.foo", "hash0"));
+    assertNull(small.get("a.foo", "hash6"));
+    assertEquals(1, small.get("a.foo", "hash7").size());
+    assertEquals(1, small.get("a.foo", "hash9").size());
+    assertEquals(0, small.get("a.foo", "hash10").size());
+  }
+
+  @Test
+  public void store_is_walked_only_once_estimate_exceeds_max_size() throws IOException {
+    FooLintScanCache first = FooLintScanCache.open(directory, FINGERPRINT, 1024 * 1024);
+    first.put("a.foo", "hash0", Collections.emptyList());
+    // walked, as the size of the new store is not known yet
+    first.evict();
+    Path staleTmp = Files.createFile(first.entryFile("hash0").resolveSibling("stale.tmp"));
+    setAge(staleTmp, TimeUnit.HOURS.toMillis(2), System.currentTimeMillis());
+
+    FooLintScanCache second = FooLintScanCache.open(directory, FINGERPRINT, 1024 * 1024);
+    second.put("a.foo", "hash1", Collections.emptyList());
+    second.evict();
+    assertTrue(Files.exists(staleTmp));
+
+    long size = 0;
+    for (Path entry : entries()) {
+      size += Files.size(entry);
+    }
+    FooLintScanCache third = FooLintScanCache.open(directory, FINGERPRINT, size);
+    third.put("a.foo", "hash2", Collections.emptyList());
+    third.evict();
+    assertFalse(Files.exists(staleTmp));
+  }
+
+  @Test
+  public void nothing_is_evicted_without_writes() throws IOException {
+    FooLintScanCache cache = FooLintScanCache.open(directory, FINGERPRINT, 0);
+
+    cache.evict();
+
+    assertFalse(Files.exists(directory));
+  }
+
+  private List<Path> entries() throws IOException {
+    try (Stream<Path> files = Files.walk(directory, 2)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".bin")).collect(Collectors.toList());
+    }
+  }
+
+  private static void setAge(Path file, long ageMs, long now) throws IOException {
+    Files.setLastModifiedTime(file, FileTime.fromMillis(now - ageMs));
+  }
+}
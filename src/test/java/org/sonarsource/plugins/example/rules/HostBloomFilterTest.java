@@ -0,0 +1,66 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class HostBloomFilterTest {
+
+  private static final int HOSTS = 10_000;
+
+  @Test
+  public void added_hosts_are_always_found() {
+    HostBloomFilter filter = new HostBloomFilter(HOSTS);
+    for (int i = 0; i < HOSTS; i++) {
+      filter.add(("host" + i + ".example.com").hashCode());
+    }
+
+    for (int i = 0; i < HOSTS; i++) {
+      assertTrue(filter.mightContain(("host" + i + ".example.com").hashCode()));
+    }
+  }
+
+  @Test
+  public void false_positives_are_about_one_percent() {
+    HostBloomFilter filter = new HostBloomFilter(HOSTS);
+    for (int i = 0; i < HOSTS; i++) {
+      filter.add(("host" + i + ".example.com").hashCode());
+    }
+
+    int falsePositives = 0;
+    int probes = 100_000;
+    for (int i = 0; i < probes; i++) {
+      if (filter.mightContain(("other" + i + ".example.org").hashCode())) {
+        falsePositives++;
+      }
+    }
+    assertTrue("false positives: " + falsePositives, falsePositives < probes * 3 / 100);
+  }
+
+  @Test
+  public void empty_or_tiny_filter_works() {
+    HostBloomFilter filter = new HostBloomFilter(0);
+    filter.add("example.com".hashCode());
+
+    assertTrue(filter.mightContain("example.com".hashCode()));
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.rule.RuleKey;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LineRulePackTest {
+
+  @Test
+  public void rules_without_pattern_nor_literal_are_not_line_rules() {
+    ActiveRules activeRules = new ActiveRulesBuilder()
+      .addRule(rule("ExampleRule1").build())
+      .addRule(rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "").build())
+      .addRule(rule("foundURL").build())
+      .build();
+
+    assertTrue(LineRulePack.compile(activeRules.findAll()).isEmpty());
+  }
+
+  @Test
+  public void lines_are_prefiltered_by_combined_rules() {
+    LineRulePack pack = compile(
+      rule("ExampleRule1").setParam(LineRulePack.LITERAL_PARAM, "TODO(").setParam(LineRulePack.MESSAGE_PARAM, "Do it"),
+      rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "[ \\t]+$"));
+
+    assertTrue(pack.isCombined());
+    assertEquals("[]", scan(pack, "clean line"));
+    assertEquals("[ExampleRule1 2-7 Do it]", scan(pack, "x TODO(me)"));
+    assertEquals("[ExampleRule1 0-5 Do it, ExampleRule2 5-7 Line matches '[ \\t]+$']", scan(pack, "TODO(  "));
+  }
+
+  @Test
+  public void numbered_back_reference_is_matched_without_combination() {
+    LineRulePack pack = compile(
+      rule("ExampleRule1").setParam(LineRulePack.LITERAL_PARAM, "FIXME"),
+      rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "(\\w+) \\1"));
+
+    assertFalse(pack.isCombined());
+    assertEquals("[ExampleRule2 0-7 Line matches '(\\w+) \\1']", scan(pack, "foo foo"));
+    assertEquals("[]", scan(pack, "foo bar"));
+    assertEquals("[ExampleRule1 0-5 Line matches 'FIXME']", scan(pack, "FIXME bar"));
+  }
+
+  @Test
+  public void escaped_backslash_is_not_a_back_reference() {
+    LineRulePack pack = compile(rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "a\\\\1"));
+
+    assertTrue(pack.isCombined());
+    assertEquals("[ExampleRule2 1-4 Line matches 'a\\\\1']", scan(pack, "xa\\1"));
+  }
+
+  @Test
+  public void duplicate_group_names_are_matched_without_combination() {
+    LineRulePack pack = compile(
+      rule("ExampleRule1").setParam(LineRulePack.PATTERN_PARAM, "(?<word>foo)"),
+      rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "(?<word>bar)"));
+
+    assertFalse(pack.isCombined());
+    assertEquals("[ExampleRule2 0-3 Line matches '(?<word>bar)']", scan(pack, "bar"));
+  }
+
+  @Test
+  public void fingerprint_changes_with_parameters() {
+    List<String> fingerprint = compile(rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "a")).fingerprint();
+
+    assertEquals(fingerprint, compile(rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "a")).fingerprint());
+    assertFalse(fingerprint.equals(compile(rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "b")).fingerprint()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void invalid_pattern_fails() {
+    compile(rule("ExampleRule2").setParam(LineRulePack.PATTERN_PARAM, "(unclosed"));
+  }
+
+  private static NewActiveRule.Builder rule(String key) {
+    return new NewActiveRule.Builder().setRuleKey(RuleKey.of(FooLintRulesDefinition.REPO_KEY, key));
+  }
+
+  private static LineRulePack compile(NewActiveRule.Builder... rules) {
+    ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+    for (NewActiveRule.Builder rule : rules) {
+      activeRules.addRule(rule.build());
+    }
+    return LineRulePack.compile(activeRules.build().findAll());
+  }
+
+  private static String scan(LineRulePack pack, String line) {
+    List<ErrorDataFromExternalLinter> issues = new ArrayList<>();
+    pack.scan("src/file.foo", 1, line, issues);
+    List<String> descriptions = new ArrayList<>();
+    for (ErrorDataFromExternalLinter issue : issues) {
+      descriptions.add(issue.getType() + " " + issue.getStartColumn() + "-" + issue.getEndColumn() + " " + issue.getDescription());
+    }
+    return descriptions.toString();
+  }
+}
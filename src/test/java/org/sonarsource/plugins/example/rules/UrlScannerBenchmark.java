@@ -0,0 +1,118 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lines per second checked for unexpected URLs by {@link UrlScanner}, compared to the former implementation
+ * which matched each line against ".*https?://.*", then against ".*" + entry + ".*" for each whitelist entry.
+ * One line out of {@value #URL_LINE_PERIOD} holds an URL, and half of the URLs are whitelisted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class UrlScannerBenchmark {
+
+  private static final int LINES = 10_000;
+  private static final int URL_LINE_PERIOD = 20;
+  private static final Pattern LEGACY_URL = Pattern.compile(".*https?://.*");
+
+  @Param({"10", "300"})
+  public int whitelistSize;
+
+  private final List<String> lines = new ArrayList<>(LINES);
+  private final List<String> whitelist = new ArrayList<>();
+  private UrlScanner scanner;
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < whitelistSize; i++) {
+      // mostly hostnames, with a few prefixes and regular expressions
+      if (i % 10 == 8) {
+        whitelist.add("https://docs" + i + ".example.org/");
+      } else if (i % 10 == 9) {
+        whitelist.add("https?://[a-z]+" + i + "\\.example\\.net/.*");
+      } else {
+        whitelist.add("service" + i + ".internal.example.com");
+      }
+    }
+    for (int i = 0; i < LINES; i++) {
+      if (i % URL_LINE_PERIOD == 0) {
+        // even URLs are whitelisted, odd ones are not
+        String host = (i / URL_LINE_PERIOD) % 2 == 0 ? "service" + (i % whitelistSize / 10 * 10) + ".internal.example.com"
+          : "unknown" + i + ".example.io";
+        lines.add("  client.get(\"https://" + host + "/api/items/" + i + "?page=2\"); // first call");
+      } else {
+        lines.add("  int value" + i + " = compute(items.get(" + i + "), threshold) + offset * " + i + ";");
+      }
+    }
+    scanner = new UrlScanner(whitelist);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES)
+  public int compiledScanner() {
+    int[] unexpected = new int[1];
+    for (String line : lines) {
+      scanner.findUnexpectedUrls(line, (start, end) -> unexpected[0]++);
+    }
+    return unexpected[0];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES)
+  public int formerRegexScan() {
+    int unexpected = 0;
+    for (String line : lines) {
+      if (LEGACY_URL.matcher(line).matches()) {
+        boolean whitelisted = false;
+        for (String entry : whitelist) {
+          if (Pattern.matches(".*" + entry + ".*", line)) {
+            whitelisted = true;
+            break;
+          }
+        }
+        if (!whitelisted) {
+          unexpected++;
+        }
+      }
+    }
+    return unexpected;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Example Plugin for SonarQube
+ * Copyright (C) 2009-2020 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.plugins.example.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class UrlScannerTest {
+
+  @Test
+  public void url_is_found_after_scheme() {
+    assertEquals(4, UrlScanner.indexOfUrl("see http://example.com", 0));
+    assertEquals(4, UrlScanner.indexOfUrl("see https://example.com", 0));
+    assertEquals(13, UrlScanner.indexOfUrl("http https:/ http://example.com", 0));
+    assertEquals(-1, UrlScanner.indexOfUrl("httpx://example.com", 0));
+    assertEquals(-1, UrlScanner.indexOfUrl("see http://example.com", 5));
+  }
+
+  @Test
+  public void trailing_punctuation_is_trimmed() {
+    assertUrl("see http://example.com/a.", "http://example.com/a");
+    assertUrl("http://example.com/a?!", "http://example.com/a");
+    assertUrl("http://example.com/a?b=c;", "http://example.com/a?b=c");
+    assertUrl("\"http://example.com/a\"", "http://example.com/a");
+    assertUrl("'http://example.com/a'", "http://example.com/a");
+  }
+
+  @Test
+  public void unbalanced_closing_parentheses_are_trimmed() {
+    assertUrl("(see http://example.com/a)", "http://example.com/a");
+    assertUrl("(see http://example.com/a).", "http://example.com/a");
+    assertUrl("((http://example.com/a)))", "http://example.com/a");
+    assertUrl("http://en.wikipedia.org/wiki/Foo_(bar)", "http://en.wikipedia.org/wiki/Foo_(bar)");
+    assertUrl("(http://en.wikipedia.org/wiki/Foo_(bar)).", "http://en.wikipedia.org/wiki/Foo_(bar)");
+    assertUrl("http://example.com/a).(", "http://example.com/a).(");
+  }
+
+  @Test
+  public void trimming_long_urls_is_linear() {
+    String url = "http://example.com/" + String.join("", Collections.nCopies(100_000, "a"));
+    String text = url + String.join("", Collections.nCopies(100_000, ").")) + " end";
+
+    assertUrl(text, url);
+  }
+
+  @Test
+  public void only_unexpected_urls_are_reported() {
+    UrlScanner scanner = new UrlScanner(Arrays.asList("example.com"));
+    List<String> unexpected = new ArrayList<>();
+    String text = "a http://example.com/a, b (https://other.org/b) c http://www.example.com d https://evil.net.";
+
+    int urls = scanner.findUnexpectedUrls(text, (start, end) -> unexpected.add(text.substring(start, end)));
+
+    assertEquals(4, urls);
+    assertEquals(Arrays.asList("https://other.org/b", "https://evil.net"), unexpected);
+  }
+
+  private static void assertUrl(String text, String expected) {
+    int start = UrlScanner.indexOfUrl(text, 0);
+    assertEquals(expected, text.substring(start, UrlScanner.endOfUrl(text, start)));
+  }
+}